@@ -2,6 +2,8 @@ package com.example.libraryapi.api;
 
 import com.example.libraryapi.api.exception.ApiErros;
 import com.example.libraryapi.exception.BusinessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -9,6 +11,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 @RestControllerAdvice
@@ -27,6 +30,14 @@ public class ApplicationControllerAdvice {
         return new ApiErros(ex);
     }
 
+    /*@Version: OUTRA REQUISICAO ALTEROU O REGISTRO ENTRE A LEITURA E O UPDATE. COM If-Match A PRECONDICAO
+    DO CLIENTE FALHOU (412); SEM ELE E UM CONFLITO DE ESCRITA (409)*/
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity handleOptimisticLockingFailure(OptimisticLockingFailureException exception, WebRequest request){
+        HttpStatus status = request.getHeader(HttpHeaders.IF_MATCH) == null ? HttpStatus.CONFLICT : HttpStatus.PRECONDITION_FAILED;
+        return new ResponseEntity(new ApiErros("Resource was modified by another request"), status);
+    }
+
     @ExceptionHandler(ResponseStatusException.class)
     public ResponseEntity handleResponseStatusException(ResponseStatusException exception){
         return new ResponseEntity(new ApiErros(exception), exception.getStatus());
@@ -0,0 +1,23 @@
+package com.example.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResultDTO {
+
+    public enum Status { CREATED, DUPLICATED, INVALID }
+
+    private Long line;
+    private String isbn;
+    private Status status;
+    private Long id;
+    private List<String> errors;
+}
@@ -0,0 +1,19 @@
+package com.example.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*BUSCA EM LOTE: IDS E/OU ISBNS DE LIVROS*/
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupDTO {
+
+    private List<Long> ids;
+    private List<String> isbns;
+}
@@ -0,0 +1,20 @@
+package com.example.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookLookupResultDTO {
+
+    public enum Status { FOUND, NOT_FOUND }
+
+    private Long id;
+    private String isbn;
+    private Status status;
+    private BookDTO book;
+}
@@ -0,0 +1,19 @@
+package com.example.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*DEVOLUCAO EM MASSA: IDS DE EMPRESTIMO E/OU ISBNS DE LIVROS EMPRESTADOS*/
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnDTO {
+
+    private List<Long> ids;
+    private List<String> isbns;
+}
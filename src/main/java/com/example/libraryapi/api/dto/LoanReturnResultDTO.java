@@ -0,0 +1,20 @@
+package com.example.libraryapi.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanReturnResultDTO {
+
+    /*NOT_FOUND: ID DE EMPRESTIMO INEXISTENTE OU ISBN SEM EMPRESTIMO ATIVO*/
+    public enum Status { RETURNED, ALREADY_RETURNED, NOT_FOUND }
+
+    private Long id;
+    private String isbn;
+    private Status status;
+}
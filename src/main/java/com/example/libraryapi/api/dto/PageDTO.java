@@ -0,0 +1,25 @@
+package com.example.libraryapi.api.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/*PAGINA DAS LISTAGENS: SO O NUMERO DA PAGINA, O TAMANHO E OS TOTAIS, SEM O pageable E O sort DO PageImpl.
+ESCRITA CAMPO A CAMPO PELO PageDTOSerializer, COM OS TOTAIS ANTES DO content*/
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonSerialize(using = PageDTOSerializer.class)
+public class PageDTO<T> {
+
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private List<T> content;
+}
@@ -0,0 +1,45 @@
+package com.example.libraryapi.api.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/*ESCREVE O PageDTO DIRETO NO JsonGenerator, SEM INTROSPECCAO DO ENVELOPE. O SERIALIZER DOS ITENS E RESOLVIDO UMA VEZ
+POR TIPO, E O GENERATOR DESCARREGA NA RESPOSTA A CADA BUFFER CHEIO EM VEZ DE MONTAR O CORPO INTEIRO ANTES*/
+public class PageDTOSerializer extends StdSerializer<PageDTO<?>> {
+
+    @SuppressWarnings("unchecked")
+    public PageDTOSerializer() {
+        super((Class<PageDTO<?>>) (Class<?>) PageDTO.class);
+    }
+
+    @Override
+    public void serialize(PageDTO<?> page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(page);
+        gen.writeNumberField("page", page.getPage());
+        gen.writeNumberField("size", page.getSize());
+        gen.writeNumberField("totalElements", page.getTotalElements());
+        gen.writeNumberField("totalPages", page.getTotalPages());
+        gen.writeArrayFieldStart("content");
+        if (page.getContent() != null) {
+            Class<?> type = null;
+            JsonSerializer<Object> serializer = null;
+            for (Object item : page.getContent()) {
+                if (item == null) {
+                    gen.writeNull();
+                    continue;
+                }
+                if (item.getClass() != type) {
+                    type = item.getClass();
+                    serializer = provider.findValueSerializer(type);
+                }
+                serializer.serialize(item, gen, provider);
+            }
+        }
+        gen.writeEndArray();
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.libraryapi.api.mapper;
+
+import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.model.entity.Book;
+
+/*MAPEAMENTO ESCRITO A MAO: SEM REFLEXAO E SEM RESOLUCAO DE TYPEMAP A CADA LINHA*/
+public final class BookMapper {
+
+    private BookMapper() {
+    }
+
+    public static BookDTO toDTO(Book book) {
+        if (book == null) {
+            return null;
+        }
+        return new BookDTO(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn());
+    }
+
+    public static Book toEntity(BookDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        Book book = new Book();
+        book.setId(dto.getId());
+        book.setTitle(dto.getTitle());
+        book.setAuthor(dto.getAuthor());
+        book.setIsbn(dto.getIsbn());
+        return book;
+    }
+}
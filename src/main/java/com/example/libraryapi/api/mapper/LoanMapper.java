@@ -0,0 +1,40 @@
+package com.example.libraryapi.api.mapper;
+
+import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.api.dto.LoanDTO;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
+
+public final class LoanMapper {
+
+    private LoanMapper() {
+    }
+
+    public static LoanDTO toDTO(Loan loan) {
+        if (loan == null) {
+            return null;
+        }
+        Book book = loan.getBook();
+        return new LoanDTO(loan.getId(), book == null ? null : book.getIsbn(), loan.getCustomer(), BookMapper.toDTO(book));
+    }
+
+    public static LoanDTO toDTO(LoanSummary summary) {
+        if (summary == null) {
+            return null;
+        }
+        BookDTO book = new BookDTO(summary.getBookId(), summary.getTitle(), summary.getAuthor(), summary.getIsbn());
+        return new LoanDTO(summary.getId(), summary.getIsbn(), summary.getCustomer(), book);
+    }
+
+    public static Loan toEntity(LoanDTO dto) {
+        if (dto == null) {
+            return null;
+        }
+        Loan loan = new Loan();
+        loan.setId(dto.getId());
+        loan.setCustomer(dto.getCustomer());
+        loan.setBook(BookMapper.toEntity(dto.getBook()));
+        return loan;
+    }
+}
@@ -1,22 +1,61 @@
 package com.example.libraryapi.api.resource;
 
 import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.api.dto.BookImportResultDTO;
+import com.example.libraryapi.api.dto.BookLookupDTO;
+import com.example.libraryapi.api.dto.BookLookupResultDTO;
+import com.example.libraryapi.api.dto.CursorPageDTO;
 import com.example.libraryapi.api.dto.LoanDTO;
+import com.example.libraryapi.api.dto.PageDTO;
+import com.example.libraryapi.api.mapper.BookMapper;
+import com.example.libraryapi.api.mapper.LoanMapper;
+import com.example.libraryapi.config.SqlBudget;
+import com.example.libraryapi.config.SqlBudgetExempt;
+import com.example.libraryapi.config.SqlStatementCounter;
 import com.example.libraryapi.model.entity.Book;
-import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.service.BookAvailabilityService;
+import com.example.libraryapi.service.BookSearchService;
 import com.example.libraryapi.service.BookService;
+import com.example.libraryapi.service.CatalogVersion;
 import com.example.libraryapi.service.LoanService;
+import com.example.libraryapi.service.ReactiveBookService;
+import com.example.libraryapi.service.ReactiveLoanService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @RestController/*API DE LIVROS CONTROLADAS PELO RESTCONTROLLER*/
@@ -24,74 +63,308 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class BookController {
 
+    static final int MAX_LOOKUP_KEYS = 1000;
+
     private final BookService service;
-    private final ModelMapper modelMapper;
 
     private final LoanService loanService;
 
+    private final ReactiveBookService reactiveService;
+
+    private final ReactiveLoanService reactiveLoanService;
+
+    private final BookSearchService searchService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final CatalogVersion catalogVersion;
+
+    private final BookAvailabilityService availabilityService;
+
+    /*LEITURAS DO CATALOGO: O NAVEGADOR REVALIDA A CADA max-age E A CDN A CADA s-max-age (304 QUANDO NADA MUDOU);
+    must-revalidate IMPEDE QUE UMA COPIA VENCIDA SEJA SERVIDA SEM PASSAR PELA REVALIDACAO*/
+    @Value("${library.http.books.max-age:60s}")
+    private Duration maxAge;
+
+    @Value("${library.http.books.s-max-age:300s}")
+    private Duration sharedMaxAge;
+
+    static final int IMPORT_CHUNK_SIZE = 500;
 
     @PostMapping /*ESTE METODO TRATA REQUISAO DO TIPO POST (CREATE)*/
     @ResponseStatus(HttpStatus.CREATED) /*RESPONSE CODE 201 PARA STATUS DE CRIACAO COM SUCESSO*/
+    @SqlBudget(3) /*EXISTS DO ISBN + INSERT (+ SEQUENCIA A CADA 50 IDS)*/
     public BookDTO create(@RequestBody @Valid BookDTO dto){
 
-        Book entity = modelMapper.map(dto, Book.class);
+        Book entity = BookMapper.toEntity(dto);
         entity = service.save(entity);
-        return modelMapper.map(entity, BookDTO.class);
+        return BookMapper.toDTO(entity);
     }
+    /*IMPORTACAO EM MASSA: ACEITA UM ARRAY JSON OU NDJSON E RESPONDE UM RESULTADO NDJSON POR LINHA, LOTE A LOTE*/
+    @PostMapping(value = "import", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @SqlBudget(value = 25, perChunk = true) /*POR LOTE DE IMPORT_CHUNK_SIZE: 1 CONSULTA DE ISBN + UM INSERT A CADA batch_size LINHAS (~12 MEDIDOS)*/
+    public void importBooks(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        ObjectWriter writer = objectMapper.writerFor(BookImportResultDTO.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        try (MappingIterator<BookDTO> rows = objectMapper.readerFor(BookDTO.class).readValues(request.getInputStream())) {
+            OutputStream out = response.getOutputStream();
+            List<BookImportResultDTO> chunkResults = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            List<Book> chunkBooks = new ArrayList<>(IMPORT_CHUNK_SIZE);
+            long line = 0;
+
+            while (true) {
+                BookDTO dto;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    dto = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    /*O STATUS 200 E OS LOTES ANTERIORES JA FORAM ENVIADOS: O ERRO VAI COMO UMA ULTIMA LINHA INVALID
+                    E A LEITURA PARA, POIS NAO HA COMO SINCRONIZAR DE NOVO COM O JSON MALFORMADO*/
+                    chunkResults.add(BookImportResultDTO.builder().line(line + 1)
+                            .status(BookImportResultDTO.Status.INVALID)
+                            .errors(Collections.singletonList("JSON invalido: " + e.getOriginalMessage())).build());
+                    break;
+                }
+                line++;
+                List<String> errors = new ArrayList<>();
+                for (ConstraintViolation<BookDTO> violation : validator.validate(dto)) {
+                    errors.add(violation.getPropertyPath() + " " + violation.getMessage());
+                }
+                if (errors.isEmpty()) {
+                    chunkBooks.add(BookMapper.toEntity(dto));
+                    chunkResults.add(BookImportResultDTO.builder().line(line).build());
+                } else {
+                    chunkResults.add(BookImportResultDTO.builder().line(line).isbn(dto.getIsbn())
+                            .status(BookImportResultDTO.Status.INVALID).errors(errors).build());
+                }
+                if (chunkResults.size() == IMPORT_CHUNK_SIZE) {
+                    writeImportChunk(chunkBooks, chunkResults, writer, out);
+                }
+            }
+            writeImportChunk(chunkBooks, chunkResults, writer, out);
+        }
+    }
+
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge).sMaxAge(sharedMaxAge).cachePublic().mustRevalidate();
+    }
+
+    private void writeImportChunk(List<Book> books, List<BookImportResultDTO> results,
+                                  ObjectWriter writer, OutputStream out) throws IOException {
+        List<BookImportResultDTO> saved = books.isEmpty() ? List.of() : service.saveAll(books);
+        int next = 0;
+        for (BookImportResultDTO result : results) {
+            if (result.getStatus() == null) {
+                BookImportResultDTO outcome = saved.get(next++);
+                result.setIsbn(outcome.getIsbn());
+                result.setStatus(outcome.getStatus());
+                result.setId(outcome.getId());
+                result.setErrors(outcome.getErrors());
+            }
+            writer.writeValue(out, result);
+            out.write('\n');
+        }
+        out.flush();
+        books.clear();
+        results.clear();
+        SqlStatementCounter.endChunk();
+    }
+
     @GetMapping("{id}")
     //@ResponseStatus(HttpStatus.ACCEPTED)
-    public BookDTO get(@PathVariable Long id){
-        return service
+    @SqlBudget(1)
+    public ResponseEntity<BookDTO> get(@PathVariable Long id, WebRequest request){
+        Book book = service
                 .getById(id)
-                .map(book -> modelMapper.map(book, BookDTO.class))
                 .orElseThrow(()-> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ConditionalResponses.ok(request, cacheControl(),
+                ConditionalResponses.version(book.getId(), book.getVersion()), book.getUpdatedAt(),
+                () -> BookMapper.toDTO(book));
+    }
+
+    /*BUSCA EM LOTE (PRATELEIRAS DE 50-200 LIVROS): UM RESULTADO POR CHAVE NA ORDEM PEDIDA, IDS E DEPOIS ISBNS, COM NOT_FOUND
+    PARA AS INEXISTENTES. CHAVES EM CACHE NAO VAO AO BANCO; AS DEMAIS SAO BUSCADAS COM IN EM LOTES DE 500.
+    ATE MAX_LOOKUP_KEYS DE CADA TIPO (400 ACIMA DISSO): UMA REQUISICAO NAO PODE TIRAR DO CACHE O RESTO DO CATALOGO*/
+    @PostMapping("batch")
+    @SqlBudget(6) /*POR LOTE DE 500 CHAVES FORA DO CACHE: UMA CONSULTA IN (ISBN: ATE DUAS); 2 LOTES DE IDS E 2 DE ISBNS*/
+    public List<BookLookupResultDTO> lookup(@RequestBody BookLookupDTO dto){
+        List<Long> ids = dto.getIds() == null ? List.of() : dto.getIds();
+        List<String> isbns = dto.getIsbns() == null ? List.of() : dto.getIsbns();
+        if (ids.size() > MAX_LOOKUP_KEYS || isbns.size() > MAX_LOOKUP_KEYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_LOOKUP_KEYS + " ids and " + MAX_LOOKUP_KEYS + " isbns per request");
+        }
+        List<BookLookupResultDTO> results = new ArrayList<>(ids.size() + isbns.size());
+        lookupResults(ids, service::getByIds, BookLookupResultDTO::setId, results);
+        lookupResults(isbns, service::getByIsbns, BookLookupResultDTO::setIsbn, results);
+        return results;
+    }
+
+    private <K> void lookupResults(List<K> keys, Function<List<K>, Map<K, Book>> lookup,
+                                   BiConsumer<BookLookupResultDTO, K> requestedKey, List<BookLookupResultDTO> results){
+        List<K> valid = keys.stream().filter(Objects::nonNull).collect(Collectors.toList());
+        Map<K, Book> books = valid.isEmpty() ? Collections.emptyMap() : lookup.apply(valid);
+        for (K key : keys) {
+            Book book = key == null ? null : books.get(key);
+            BookLookupResultDTO result = new BookLookupResultDTO();
+            if (book == null) {
+                result.setStatus(BookLookupResultDTO.Status.NOT_FOUND);
+            } else {
+                result.setStatus(BookLookupResultDTO.Status.FOUND);
+                result.setId(book.getId());
+                result.setIsbn(book.getIsbn());
+                result.setBook(BookMapper.toDTO(book));
+            }
+            requestedKey.accept(result, key);
+            results.add(result);
+        }
     }
 
     @DeleteMapping("{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
+    @SqlBudget(3)
     public void delete(@PathVariable Long id){
         Book book = service.getById(id).orElseThrow(()-> new ResponseStatusException(HttpStatus.NOT_FOUND));
         service.delete(book);
     }
 
     @PutMapping("{id}")
-    public BookDTO update(@PathVariable Long id, BookDTO dto){
-        return service.getById(id).map(book ->{
-
+    @SqlBudget(3) /*LIVRO (CACHE) + SELECT DO MERGE + UPDATE DAS COLUNAS ALTERADAS*/
+    public ResponseEntity<BookDTO> update(@PathVariable Long id, @RequestBody BookDTO dto, WebRequest request){
+        return write(id, request, book -> {
             book.setAuthor(dto.getAuthor());
             book.setTitle(dto.getTitle());
-            book = service.update(book);
-            return modelMapper.map(book, BookDTO.class);
+        });
+    }
+
+    /*ATUALIZACAO PARCIAL: APENAS OS CAMPOS ENVIADOS (NAO NULOS) SAO ALTERADOS; O ISBN NAO MUDA*/
+    @PatchMapping("{id}")
+    @SqlBudget(3)
+    public ResponseEntity<BookDTO> patch(@PathVariable Long id, @RequestBody BookDTO dto, WebRequest request){
+        return write(id, request, book -> {
+            if (dto.getAuthor() != null) {
+                book.setAuthor(dto.getAuthor());
+            }
+            if (dto.getTitle() != null) {
+                book.setTitle(dto.getTitle());
+            }
+        });
+    }
 
-        }).orElseThrow(()-> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    /*If-Match OPCIONAL: COM ELE, UMA ETag DIFERENTE DA ATUAL RESPONDE 412; SEM ELE, UMA ESCRITA CONCORRENTE
+    E DETECTADA PELO @Version NO UPDATE E RESPONDE 409 (ApplicationControllerAdvice)*/
+    private ResponseEntity<BookDTO> write(Long id, WebRequest request, Consumer<Book> changes){
+        Book book = service.getById(id).orElseThrow(()-> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch != null && !ConditionalResponses.matches(ifMatch, ConditionalResponses.version(book.getId(), book.getVersion()))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Book was modified by another request");
+        }
+        changes.accept(book);
+        Book updated = service.update(book);
+        return ResponseEntity.ok()
+                .eTag(ConditionalResponses.etag(ConditionalResponses.version(updated.getId(), updated.getVersion())))
+                .body(BookMapper.toDTO(updated));
     }
 
     @GetMapping
-    public Page<BookDTO> find (BookDTO dto, Pageable pageRequest){
-        Book filter = modelMapper.map(dto, Book.class);
-        Page<Book> result = service.find(filter, pageRequest);
-        List<BookDTO> list = result.getContent()
-                .stream()
-                .map(entity -> modelMapper.map(entity, BookDTO.class))
-                .collect(Collectors.toList());
+    @SqlBudget(3) /*VERSAO DO CATALOGO + PAGINA + COUNT (COM available: IDS DO FILTRO + PAGINA); SO A VERSAO QUANDO RESPONDE 304*/
+    public ResponseEntity<PageDTO<BookDTO>> find (BookDTO dto, Pageable pageRequest,
+                                                  @RequestParam(required = false) Boolean available, WebRequest request){
+        if (available != null) {
+            return findByAvailability(dto, available, pageRequest, request);
+        }
+        return ConditionalResponses.ok(request, cacheControl(), catalogVersion.etag(), catalogVersion.lastModified(),
+                () -> Pages.of(service.find(BookMapper.toEntity(dto), pageRequest), BookMapper::toDTO));
+    }
+
+    /*?available=true|false: LIVROS DISPONIVEIS (OU EMPRESTADOS) PELO INDICE DE DISPONIBILIDADE, COMBINAVEL COM title/author/isbn.
+    ORDEM DE ID (O sort E IGNORADO). A PAGINA VEM DO INDICE DESTA INSTANCIA, QUE RECEBE AS ESCRITAS DAS OUTRAS SO NA RECARGA
+    PERIODICA: PODE ESTAR ATRASADA EM ATE library.availability.refresh-interval. POR ISSO A ETag TEM A VERSAO DO CATALOGO E DOS
+    EMPRESTIMOS (DO BANCO) E TAMBEM A CARGA DO INDICE DE ONDE A PAGINA VEIO: UMA MESMA ETag NUNCA ROTULA DUAS PAGINAS DIFERENTES.
+    SEM Last-Modified: OS EMPRESTIMOS NAO TEM updated_at, A REVALIDACAO E SO PELA ETag*/
+    private ResponseEntity<PageDTO<BookDTO>> findByAvailability(BookDTO dto, boolean available, Pageable pageRequest,
+                                                                WebRequest request){
+        return ConditionalResponses.ok(request, cacheControl(), catalogVersion.etag() + "-" + availabilityService.version(),
+                null, () -> Pages.of(availabilityService.find(BookMapper.toEntity(dto), available, pageRequest),
+                        BookMapper::toDTO));
+    }
 
-        return new PageImpl<BookDTO>(list,pageRequest,result.getTotalElements());
+    /*MODO CURSOR: ?cursor= (VAZIO NA PRIMEIRA PAGINA) E DEPOIS O nextCursor DEVOLVIDO. SEM FILTRO available (400):
+    A PAGINA VEM DO BANCO E NAO DO INDICE DE DISPONIBILIDADE*/
+    @GetMapping(params = "cursor")
+    @SqlBudget(2) /*VERSAO DO CATALOGO + PAGINA*/
+    public ResponseEntity<CursorPageDTO<BookDTO>> scroll(BookDTO dto, @RequestParam String cursor,
+                                                         @RequestParam(defaultValue = "20") int size,
+                                                         @RequestParam(required = false) Boolean available,
+                                                         WebRequest request){
+        if (available != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "available cannot be combined with cursor");
+        }
+        int limit = Cursors.limit(size);
+        Long afterId = Cursors.decode(cursor);
+        return ConditionalResponses.ok(request, cacheControl(), catalogVersion.etag(), catalogVersion.lastModified(), () -> {
+            List<Book> rows = service.findAfter(BookMapper.toEntity(dto), afterId, limit + 1);
+            return Cursors.page(rows, limit, Book::getId, BookMapper::toDTO);
+        });
+    }
+
+    /*MODO STREAMING (Accept: application/x-ndjson): O CATALOGO FILTRADO INTEIRO, UM LIVRO POR LINHA, LIDO EM LOTES CONFORME
+    O CLIENTE CONSOME*/
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @SqlBudgetExempt("UMA CONSULTA POR LOTE NO jdbcScheduler")
+    public Flux<String> stream(BookDTO dto){
+        return NdjsonChunks.of(reactiveService.find(BookMapper.toEntity(dto)).map(BookMapper::toDTO),
+                objectMapper.writerFor(BookDTO.class));
+    }
+
+    /*BUSCA TEXTUAL POR TITULO E AUTOR, ORDENADA POR RELEVANCIA (ACEITA PREFIXO E UM ERRO DE DIGITACAO). OS IDS VEM DO INDICE
+    DESTA INSTANCIA, ATRASADO EM ATE library.search.refresh-interval PARA AS ESCRITAS DAS OUTRAS: A ETag TEM A VERSAO DO
+    CATALOGO E A CARGA DO INDICE, COMO NA LISTAGEM POR DISPONIBILIDADE, E NAO HA Last-Modified*/
+    @GetMapping("search")
+    @SqlBudget(2) /*VERSAO DO CATALOGO + CONSULTA DO INDICE*/
+    public ResponseEntity<List<BookDTO>> search(@RequestParam("q") String query, @RequestParam(defaultValue = "20") int size,
+                                                WebRequest request){
+        return ConditionalResponses.ok(request, cacheControl(), catalogVersion.etag() + "-" + searchService.version(), null,
+                () -> searchService.search(query, Cursors.limit(size))
+                        .stream()
+                        .map(BookMapper::toDTO)
+                        .collect(Collectors.toList()));
     }
 
     @GetMapping("{id}/loans")
-    public Page<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable){
+    @SqlBudget(3) /*LIVRO (CACHE) + PAGINA + COUNT*/
+    public PageDTO<LoanDTO> loansByBook(@PathVariable Long id, Pageable pageable){
+      Book book =  service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+      return Pages.of(loanService.getLoansByBook(book.getId(), pageable), LoanMapper::toDTO);
+    }
+
+    /*HISTORICO COMPLETO EM STREAMING (Accept: application/x-ndjson); 404 ANTES DA PRIMEIRA LINHA SE O LIVRO NAO EXISTE*/
+    @GetMapping(value = "{id}/loans", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @SqlBudgetExempt("LIVRO (CACHE) + UMA CONSULTA POR LOTE NO jdbcScheduler")
+    public Flux<String> streamLoansByBook(@PathVariable Long id){
+      Flux<LoanDTO> loans = reactiveService.getById(id)
+              .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)))
+              .flatMapMany(book -> reactiveLoanService.getLoansByBook(book.getId()))
+              .map(LoanMapper::toDTO);
+      return NdjsonChunks.of(loans, objectMapper.writerFor(LoanDTO.class));
+    }
+
+    /*MODO CURSOR DO HISTORICO: ?cursor= (VAZIO NA PRIMEIRA PAGINA) E DEPOIS O nextCursor DEVOLVIDO*/
+    @GetMapping(value = "{id}/loans", params = "cursor")
+    @SqlBudget(2) /*LIVRO (CACHE) + PAGINA*/
+    public CursorPageDTO<LoanDTO> scrollLoansByBook(@PathVariable Long id, @RequestParam String cursor,
+                                                    @RequestParam(defaultValue = "20") int size){
       Book book =  service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
-      Page<Loan> result = loanService.getLoansByBook(book,pageable);
-      List<LoanDTO> list = result.getContent()
-              .stream()
-              .map(loan ->{
-                  Book loanBook = loan.getBook();
-                  BookDTO bookDTO = modelMapper.map(loanBook, BookDTO.class);
-                  LoanDTO loanDTO = modelMapper.map(loanBook, LoanDTO.class);
-                  loanDTO.setBook(bookDTO);
-                  return loanDTO;
-              }).collect(Collectors.toList());
-      return new PageImpl<LoanDTO>(list,pageable,result.getTotalElements());
+      int limit = Cursors.limit(size);
+      List<LoanSummary> rows = loanService.getLoansByBookAfter(book.getId(), Cursors.decode(cursor), limit + 1);
+      return Cursors.page(rows, limit, LoanSummary::getId, LoanMapper::toDTO);
     }
 
 }
@@ -0,0 +1,52 @@
+package com.example.libraryapi.api.resource;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.util.function.Supplier;
+
+/*GET CONDICIONAL: SE If-None-Match / If-Modified-Since CASAREM, RESPONDE 304 SEM MONTAR O CORPO.
+O CORPO SO E CALCULADO (E O BANCO SO E CONSULTADO) QUANDO O CLIENTE NAO TEM A VERSAO ATUAL*/
+final class ConditionalResponses {
+
+    private ConditionalResponses() {
+    }
+
+    static <T> ResponseEntity<T> ok(WebRequest request, CacheControl cacheControl, String version,
+                                    Instant lastModified, Supplier<T> body) {
+        String etag = etag(version);
+        long lastModifiedMillis = lastModified == null ? -1 : lastModified.toEpochMilli();
+        if (request.checkNotModified(etag, lastModifiedMillis)) {
+            /*STATUS 304, ETag E Last-Modified JA FORAM DEFINIDOS PELO checkNotModified*/
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(cacheControl).eTag(etag);
+        if (lastModified != null) {
+            response.lastModified(lastModified);
+        }
+        return response.body(body.get());
+    }
+
+    static String version(Long id, Long version) {
+        return id + "-" + (version == null ? 0 : version);
+    }
+
+    static String etag(String version) {
+        return "\"" + version + "\"";
+    }
+
+    /*If-Match USA COMPARACAO FORTE: SO CASA COM A ETag ATUAL (OU *); ETags FRACAS (W/) NUNCA CASAM*/
+    static boolean matches(String ifMatch, String version) {
+        String etag = etag(version);
+        for (String candidate : ifMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
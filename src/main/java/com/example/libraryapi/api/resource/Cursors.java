@@ -0,0 +1,59 @@
+package com.example.libraryapi.api.resource;
+
+import com.example.libraryapi.api.dto.CursorPageDTO;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/*CURSOR OPACO PARA PAGINACAO POR CHAVE: O CLIENTE SO DEVOLVE O nextCursor RECEBIDO*/
+final class Cursors {
+
+    static final int MAX_SIZE = 1000;
+    private static final String PREFIX = "id:";
+
+    private Cursors() {
+    }
+
+    static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(value);
+            }
+            return Long.valueOf(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static int limit(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Size must be between 1 and " + MAX_SIZE);
+        }
+        return size;
+    }
+
+    /*A CONSULTA BUSCA size + 1 LINHAS: A LINHA EXTRA SO INDICA QUE EXISTE PROXIMA PAGINA*/
+    static <E, D> CursorPageDTO<D> page(List<E> rows, int size, Function<E, Long> id, Function<E, D> mapper) {
+        boolean hasNext = rows.size() > size;
+        List<D> content = new ArrayList<>(Math.min(rows.size(), size));
+        for (int i = 0; i < rows.size() && i < size; i++) {
+            content.add(mapper.apply(rows.get(i)));
+        }
+        String next = hasNext ? encode(id.apply(rows.get(size - 1))) : null;
+        return new CursorPageDTO<>(content, content.size(), next);
+    }
+}
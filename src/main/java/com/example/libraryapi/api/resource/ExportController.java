@@ -0,0 +1,108 @@
+package com.example.libraryapi.api.resource;
+
+import com.example.libraryapi.config.SqlBudgetExempt;
+import com.example.libraryapi.service.ExportFormat;
+import com.example.libraryapi.service.ExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/*EXPORTACAO PARA O DATA WAREHOUSE: ?format=csv|ndjson, COMPACTADA QUANDO O CLIENTE ENVIA Accept-Encoding: gzip.
+A ESCRITA RODA NO EXECUTOR ASSINCRONO DO MVC (StreamingResponseBody), SEM PRENDER A THREAD DO TOMCAT*/
+@RestController
+@RequestMapping("/api/exports")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private final ExportService service;
+
+    @GetMapping("books")
+    @SqlBudgetExempt("UM SELECT EM CURSOR JdbcTemplate NO EXECUTOR ASSINCRONO DO MVC")
+    public ResponseEntity<StreamingResponseBody> books(@RequestParam(defaultValue = "csv") String format,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        ExportFormat exportFormat = parse(format);
+        return stream("books", exportFormat, acceptEncoding, out -> service.exportBooks(exportFormat, out));
+    }
+
+    @GetMapping("loans")
+    @SqlBudgetExempt("UM SELECT EM CURSOR JdbcTemplate NO EXECUTOR ASSINCRONO DO MVC")
+    public ResponseEntity<StreamingResponseBody> loans(@RequestParam(defaultValue = "csv") String format,
+                                                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        ExportFormat exportFormat = parse(format);
+        return stream("loans", exportFormat, acceptEncoding, out -> service.exportLoans(exportFormat, out));
+    }
+
+    private static ExportFormat parse(String format){
+        return ExportFormat.of(format)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid export format"));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, String acceptEncoding,
+                                                                StreamingResponseBody body){
+        boolean gzip = acceptsGzip(acceptEncoding);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(format.getMediaType() + ";charset=UTF-8"));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(name + "." + format.getExtension())
+                .build());
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return new ResponseEntity<>(body, headers, HttpStatus.OK);
+        }
+        headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return new ResponseEntity<>(out -> {
+            GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024);
+            body.writeTo(compressed);
+            compressed.finish();
+        }, headers, HttpStatus.OK);
+    }
+
+    /*Accept-Encoding POR TOKEN: gzip (OU O ALIAS x-gzip) COM q > 0; SEM ELE, * COM q > 0. "gzip;q=0" E UMA RECUSA
+    EXPLICITA, E UM q MALFORMADO CONTA COMO RECUSA*/
+    static boolean acceptsGzip(String acceptEncoding){
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim().toLowerCase(Locale.ROOT);
+                if (param.startsWith("q=")) {
+                    quality = quality(param.substring(2).trim());
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        return gzip != null ? gzip > 0 : any != null && any > 0;
+    }
+
+    private static double quality(String value){
+        try {
+            double quality = Double.parseDouble(value);
+            return quality >= 0 && quality <= 1 ? quality : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -1,37 +1,56 @@
 package com.example.libraryapi.api.resource;
 
-import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.api.dto.CursorPageDTO;
 import com.example.libraryapi.api.dto.LoanDTO;
 import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.api.dto.LoanReturnDTO;
+import com.example.libraryapi.api.dto.LoanReturnResultDTO;
+import com.example.libraryapi.api.dto.PageDTO;
 import com.example.libraryapi.api.dto.ReturnedLoanDTO;
+import com.example.libraryapi.api.mapper.LoanMapper;
+import com.example.libraryapi.config.SqlBudget;
+import com.example.libraryapi.config.SqlBudgetExempt;
 import com.example.libraryapi.model.entity.Book;
 import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.model.repositoy.LoanRepository;
 import com.example.libraryapi.service.BookService;
 import com.example.libraryapi.service.LoanService;
+import com.example.libraryapi.service.ReactiveLoanService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/loans")
 @RequiredArgsConstructor
 public class LoanController {
 
+    /*LIMITES DA DEVOLUCAO EM MASSA: COM LOTES DE 500 CHAVES (CONSULTA DE ESTADO + UM UPDATE CADA) O PIOR CASO SAO
+    10 LOTES DE IDS E 5 DE ISBNS, OS 30 COMANDOS DO @SqlBudget*/
+    static final int MAX_RETURN_IDS = 5000;
+    static final int MAX_RETURN_ISBNS = 2500;
+
     private final LoanService service;
     private  final BookService bookService;
+    private final ReactiveLoanService reactiveService;
+    private final ObjectMapper objectMapper;
 
-    private final ModelMapper modelMapper;
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
+    @SqlBudget(2)
     public Long create(@RequestBody LoanDTO dto){
         Book book = bookService.getBookByIsbn(dto.getIsbn())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST ,
@@ -45,33 +64,73 @@ public class LoanController {
         entity = service.save(entity);
         return  entity.getId();
     }
+    /*ETag id-version DO EMPRESTIMO, PARA O If-Match DA DEVOLUCAO. no-cache E private: DADO DO CLIENTE, SEMPRE REVALIDADO*/
+    @GetMapping("{id}")
+    @SqlBudget(1)
+    public ResponseEntity<LoanDTO> get(@PathVariable Long id, WebRequest request){
+        Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        return ConditionalResponses.ok(request, CacheControl.noCache().cachePrivate(),
+                ConditionalResponses.version(loan.getId(), loan.getVersion()), null, () -> LoanMapper.toDTO(loan));
+    }
+
+    /*If-Match OPCIONAL, COMO NO BookController: COM ELE, UMA ETag DIFERENTE DA ATUAL RESPONDE 412; SEM ELE, UMA DEVOLUCAO
+    CONCORRENTE E DETECTADA PELO @Version NO UPDATE E RESPONDE 409 (ApplicationControllerAdvice)*/
     @PatchMapping("{id}")
-    public void returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto){
+    @SqlBudget(2)
+    public ResponseEntity<Void> returnBook(@PathVariable Long id, @RequestBody ReturnedLoanDTO dto, WebRequest request){
 
         Loan loan = service.getById(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND /*,
                 "Book not found passed isbn" */));
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch != null && !ConditionalResponses.matches(ifMatch, ConditionalResponses.version(loan.getId(), loan.getVersion()))) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Loan was modified by another request");
+        }
         loan.setReturned(dto.getReturned());
 
-        service.update(loan);
+        Loan updated = service.update(loan);
+        return ResponseEntity.ok()
+                .eTag(ConditionalResponses.etag(ConditionalResponses.version(updated.getId(), updated.getVersion())))
+                .build();
     }
 
-    @GetMapping
-    public Page<LoanDTO> find(LoanFilterDTO dto, Pageable pageable){
-        Page<Loan> result = service.find(dto, pageable);
-        List<LoanDTO> loans = result
-                .getContent()
-                .stream()
-                .map(entity -> {
+    /*DEVOLUCAO EM MASSA (BALCAO DE DEVOLUCAO): UM RESULTADO POR ITEM, NA ORDEM RECEBIDA (IDS E DEPOIS ISBNS)*/
+    @PostMapping("returns")
+    @SqlBudget(30) /*MAX_RETURN_IDS + MAX_RETURN_ISBNS*/
+    public List<LoanReturnResultDTO> returnBooks(@RequestBody LoanReturnDTO dto){
+        if (size(dto.getIds()) > MAX_RETURN_IDS || size(dto.getIsbns()) > MAX_RETURN_ISBNS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_RETURN_IDS + " ids and " + MAX_RETURN_ISBNS + " isbns per request");
+        }
+        return service.returnAll(dto.getIds(), dto.getIsbns());
+    }
 
-                    Book book = entity.getBook();
-                    BookDTO bookDTO = modelMapper.map(book, BookDTO.class);
-                    LoanDTO loanDTO = modelMapper.map(entity, LoanDTO.class);
-                    loanDTO.setBook(bookDTO);
-                    return loanDTO;
+    /*sort POR id, loanDate OU customer (ASC OU DESC, id DESEMPATA); OUTRAS CHAVES SAO 400*/
+    @GetMapping
+    @SqlBudget(3) /*IDS DA PAGINA + LINHAS + COUNT*/
+    public PageDTO<LoanDTO> find(LoanFilterDTO dto, Pageable pageable){
+        Pages.requireSortBy(pageable, LoanRepository.SORT_KEYS);
+        return Pages.of(service.find(dto, pageable), LoanMapper::toDTO);
+    }
 
-                }).collect(Collectors.toList());
+    /*MODO STREAMING (Accept: application/x-ndjson): TODOS OS EMPRESTIMOS DO FILTRO, UM POR LINHA, SEM COUNT. OS LOTES SAO LIDOS
+    CONFORME O CLIENTE CONSOME (BACKPRESSURE) E NENHUMA THREAD DO TOMCAT FICA PRESA DURANTE A RESPOSTA*/
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @SqlBudgetExempt("UMA CONSULTA POR LOTE NO jdbcScheduler")
+    public Flux<String> stream(LoanFilterDTO dto){
+        return NdjsonChunks.of(reactiveService.find(dto).map(LoanMapper::toDTO), objectMapper.writerFor(LoanDTO.class));
+    }
 
-        return new PageImpl<LoanDTO>(loans, pageable, result.getTotalElements());
+    /*MODO CURSOR: ?cursor= (VAZIO NA PRIMEIRA PAGINA) E DEPOIS O nextCursor DEVOLVIDO*/
+    @GetMapping(params = "cursor")
+    @SqlBudget(2)
+    public CursorPageDTO<LoanDTO> scroll(LoanFilterDTO dto, @RequestParam String cursor,
+                                         @RequestParam(defaultValue = "20") int size){
+        int limit = Cursors.limit(size);
+        List<LoanSummary> rows = service.findAfter(dto, Cursors.decode(cursor), limit + 1);
+        return Cursors.page(rows, limit, LoanSummary::getId, LoanMapper::toDTO);
     }
 
+    private static int size(List<?> values) {
+        return values == null ? 0 : values.size();
+    }
 }
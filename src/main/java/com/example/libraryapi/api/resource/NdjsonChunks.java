@@ -0,0 +1,34 @@
+package com.example.libraryapi.api.resource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+
+/*O MVC ESCREVE E DA FLUSH EM CADA ELEMENTO DE UM Flux EM STREAMING, PASSANDO PELO CONVERSOR DE MENSAGENS. AQUI AS LINHAS
+SAO AGRUPADAS E SERIALIZADAS EM UM UNICO TEXTO NDJSON POR GRUPO, QUE O MVC ESCREVE COMO ESTA: UMA ESCRITA NA REDE POR
+GRUPO EM VEZ DE UMA POR LINHA. O GRUPO PEDE AS LINHAS AO Flux DE ORIGEM, QUE CONTINUA LENDO O BANCO CONFORME A DEMANDA*/
+final class NdjsonChunks {
+
+    static final int LINES_PER_CHUNK = 64;
+
+    private NdjsonChunks() {
+    }
+
+    static <T> Flux<String> of(Flux<T> rows, ObjectWriter writer) {
+        return rows.buffer(LINES_PER_CHUNK).map(chunk -> join(chunk, writer));
+    }
+
+    private static <T> String join(List<T> chunk, ObjectWriter writer) {
+        StringBuilder text = new StringBuilder(chunk.size() * 128);
+        try {
+            for (T row : chunk) {
+                text.append(writer.writeValueAsString(row)).append('\n');
+            }
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+        return text.toString();
+    }
+}
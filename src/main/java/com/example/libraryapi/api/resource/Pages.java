@@ -0,0 +1,37 @@
+package com.example.libraryapi.api.resource;
+
+import com.example.libraryapi.api.dto.PageDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/*CONVERTE A Page DO SERVICO NO PageDTO DA RESPOSTA, MAPEANDO CADA LINHA PARA O DTO*/
+final class Pages {
+
+    private Pages() {
+    }
+
+    static <E, D> PageDTO<D> of(Page<E> page, Function<E, D> mapper) {
+        List<D> content = new ArrayList<>(page.getNumberOfElements());
+        for (E row : page.getContent()) {
+            content.add(mapper.apply(row));
+        }
+        return new PageDTO<>(page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages(), content);
+    }
+
+    /*CONSULTAS QUE NAO REPASSAM O Sort AO BANCO: UMA CHAVE NAO SUPORTADA E 400, E NAO UMA PAGINA EM OUTRA ORDEM*/
+    static void requireSortBy(Pageable pageable, Set<String> keys) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!keys.contains(order.getProperty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Sort must be by one of " + keys);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.libraryapi.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*library.jackson.blackbird=true: OS GETTERS E SETTERS DOS DTOs PASSAM A SER CHAMADOS POR LambdaMetafactory EM VEZ DE
+REFLEXAO. O SPRING BOOT REGISTRA TODO Module DO CONTEXTO NO ObjectMapper DAS RESPOSTAS*/
+@Configuration(proxyBeanMethods = false)
+public class JacksonConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "library.jackson.blackbird", havingValue = "true")
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.libraryapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*TIMER library.method PARA TODO METODO PUBLICO DOS @Service E DOS REPOSITORIOS DO PROJETO.
+TAGS DE BAIXA CARDINALIDADE: layer (service|repository), class, method E exception (NOME DA CLASSE OU none)*/
+@Aspect
+public class MethodMetricsAspect {
+
+    static final String METRIC = "library.method";
+    private static final String BASE_PACKAGE = "com.example.libraryapi";
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+    public MethodMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * *(..)) && @within(org.springframework.stereotype.Service)")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "service", joinPoint.getTarget().getClass().getSimpleName());
+    }
+
+    @Around("execution(public * *(..)) && this(org.springframework.data.repository.Repository)"
+            + " && !execution(* java.lang.Object.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, "repository", repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(),
+                MethodMetricsAspect::repositoryName));
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String layer, String className) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC)
+                    .tag("layer", layer)
+                    .tag("class", className)
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+
+    /*O PROXY DO SPRING DATA IMPLEMENTA A INTERFACE DO PROJETO (BookRepository, LoanRepository)*/
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> type : proxyClass.getInterfaces()) {
+            if (type.getName().startsWith(BASE_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
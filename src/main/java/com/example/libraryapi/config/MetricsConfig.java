@@ -0,0 +1,45 @@
+package com.example.libraryapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*METRICAS DA APLICACAO EXPOSTAS EM /actuator/prometheus:
+- library.method: LATENCIA DE CADA METODO DE SERVICE E REPOSITORIO (HISTOGRAMA, VEJA application.properties)
+- library.http.sql.statements: COMANDOS SQL POR REQUISICAO (COM LIMITE POR ENDPOINT VIA @SqlBudget)
+- library.singleflight.calls: LEITURAS DE LIVROS EXECUTADAS E AGRUPADAS EM UMA CONSULTA JA EM ANDAMENTO (CoalescingBookService)
+- hikaricp.connections.acquire: ESPERA POR CONEXAO DO POOL (AUTOCONFIGURADA PELO ACTUATOR)*/
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    @Bean
+    public MethodMetricsAspect methodMetricsAspect(MeterRegistry registry) {
+        return new MethodMetricsAspect(registry);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        return properties -> properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, new SqlStatementCounter());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "library.sql.budget.enforce", havingValue = "true")
+    public SqlBudgetEnforcingFilter sqlBudgetEnforcingFilter() {
+        return new SqlBudgetEnforcingFilter();
+    }
+
+    @Bean
+    public WebMvcConfigurer sqlStatementMetricsConfigurer(MeterRegistry registry) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry interceptors) {
+                interceptors.addInterceptor(new SqlStatementMetricsInterceptor(registry));
+            }
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.libraryapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/*SCHEDULER DAS CHAMADAS JDBC DOS SERVICOS REATIVOS: O JPA CONTINUA BLOQUEANTE, ENTAO CADA CONSULTA RODA AQUI E A THREAD
+DO TOMCAT FICA LIVRE ENQUANTO O Flux/Mono ESPERA. MESMO NUMERO DE THREADS QUE O POOL DO HIKARI: NINGUEM ESPERA CONEXAO
+SEGURANDO UMA THREAD; O EXCESSO FICA NA FILA (LIMITADA) DO SCHEDULER*/
+@Configuration(proxyBeanMethods = false)
+public class ReactiveConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(@Value("${library.reactive.jdbc-threads:${spring.datasource.hikari.maximum-pool-size:10}}") int threads,
+                                   @Value("${library.reactive.jdbc-queue:100000}") int queuedTasks) {
+        return Schedulers.newBoundedElastic(threads, queuedTasks, "library-jdbc");
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.libraryapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/*METODOS @ReplicaRead EM TRANSACAO @Transactional(readOnly = true) VAO PARA A REPLICA (library.datasource.replica.*);
+TODO O RESTO, INCLUSIVE AS DEMAIS LEITURAS readOnly, VAI PARA O BANCO PRINCIPAL (spring.datasource.*). AS LEITURAS QUE
+ENCHEM OS CACHES (LIVRO POR id/isbn, ENTIDADES NO SEGUNDO NIVEL) OU GERAM ETag (CatalogVersion) FICAM NO PRINCIPAL: UMA
+REPLICA ATRASADA GUARDARIA LINHAS VELHAS NO CACHE OU RESPONDERIA 304 COM DADOS VELHOS SOB UMA ETag NOVA.
+O LazyConnectionDataSourceProxy ADIA A ESCOLHA DO POOL ATE O PRIMEIRO COMANDO, QUANDO A TRANSACAO JA MARCOU SE E SOMENTE
+LEITURA E O ReplicaReadAspect JA MARCOU A THREAD*/
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "library.datasource.replica.url")
+public class ReadOnlyRoutingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("library-primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("library.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                              @Value("${library.datasource.replica.url}") String url,
+                                              @Value("${library.datasource.replica.username:}") String username,
+                                              @Value("${library.datasource.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username.isEmpty() ? properties.determineUsername() : username)
+                .password(password.isEmpty() ? properties.determinePassword() : password)
+                .build();
+        dataSource.setPoolName("library-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource();
+        routing.setTargetDataSources(Map.of(Boolean.FALSE, primaryDataSource, Boolean.TRUE, replicaDataSource));
+        routing.setDefaultTargetDataSource(primaryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    static class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && ReplicaReadAspect.active();
+        }
+    }
+}
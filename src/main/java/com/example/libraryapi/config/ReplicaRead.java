@@ -0,0 +1,14 @@
+package com.example.libraryapi.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*LEITURA QUE PODE IR PARA A REPLICA (ReadOnlyRoutingDataSourceConfig). SO PARA CONSULTAS QUE NAO ALIMENTAM CACHE
+(CAFFEINE, SEGUNDO NIVEL E DE CONSULTA DO HIBERNATE) NEM ETag: PROJECOES, EXPORTACOES E RELATORIOS, QUE TOLERAM O ATRASO
+DA REPLICA. AS DEMAIS LEITURAS readOnly CONTINUAM NO BANCO PRINCIPAL*/
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReplicaRead {
+}
@@ -0,0 +1,28 @@
+package com.example.libraryapi.config;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/*MARCA A THREAD DURANTE UM METODO @ReplicaRead. COMO O LazyConnectionDataSourceProxy SO ESCOLHE O POOL NO PRIMEIRO
+COMANDO, A MARCA VALE PARA A CONEXAO DA TRANSACAO QUANDO ELA AINDA NAO TINHA CONSULTADO O BANCO*/
+@Aspect
+public class ReplicaReadAspect {
+
+    private static final ThreadLocal<Boolean> REPLICA = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    @Around("@annotation(com.example.libraryapi.config.ReplicaRead)")
+    public Object replicaRead(ProceedingJoinPoint joinPoint) throws Throwable {
+        Boolean previous = REPLICA.get();
+        REPLICA.set(Boolean.TRUE);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            REPLICA.set(previous);
+        }
+    }
+
+    static boolean active() {
+        return REPLICA.get();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.libraryapi.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+/*CACHE DE SEGUNDO NIVEL DO HIBERNATE (CAFFEINE JCACHE). AS REGIOES E SEUS LIMITES FICAM EM application.conf;
+UMA REGIAO NAO CONFIGURADA LA IMPEDE A INICIALIZACAO (hibernate.javax.cache.missing_cache_strategy=fail).
+O CacheManager PADRAO DO PROVEDOR E UM SO POR JVM: CADA CONTEXTO (E SEU BANCO) RECEBE O SEU PARA QUE DOIS
+SessionFactory NUNCA COMPARTILHEM ENTRADAS*/
+@Configuration(proxyBeanMethods = false)
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(ApplicationContext context) {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("library:" + ObjectUtils.getIdentityHexString(context)),
+                        SecondLevelCacheConfig.class.getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
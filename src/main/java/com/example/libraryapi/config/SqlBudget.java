@@ -0,0 +1,21 @@
+package com.example.libraryapi.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*NUMERO MAXIMO DE COMANDOS SQL QUE UMA REQUISICAO AO ENDPOINT PODE EXECUTAR.
+ACIMA DISSO SqlStatementMetricsInterceptor REGISTRA UM AVISO (library.sql.budget.enforce=true FAZ A REQUISICAO FALHAR).
+perChunk: O LIMITE VALE PARA CADA LOTE DE UM ENDPOINT SEM TAMANHO MAXIMO (IMPORTACAO EM STREAMING); O CONTROLLER MARCA O
+FIM DE CADA LOTE COM SqlStatementCounter.endChunk()*/
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    int value();
+
+    boolean perChunk() default false;
+}
@@ -0,0 +1,26 @@
+package com.example.libraryapi.config;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/*MODO DE TESTE (library.sql.budget.enforce=true): TRANSFORMA O ESTOURO DE @SqlBudget EM EXCECAO, QUE O MockMvc PROPAGA.
+FICA FORA DO DispatcherServlet PORQUE EXCECOES LANCADAS EM afterCompletion SAO APENAS LOGADAS.
+ISENTOS: OS ENDPOINTS @SqlBudgetExempt (STREAMING EM NDJSON E EXPORTACOES), CUJOS COMANDOS RODAM FORA DA THREAD DA
+REQUISICAO OU FORA DO HIBERNATE E NAO SAO CONTADOS; NAO HA LIMITE PARA ELES AQUI*/
+public class SqlBudgetEnforcingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        chain.doFilter(request, response);
+        Object exceeded = request.getAttribute(SqlStatementMetricsInterceptor.BUDGET_EXCEEDED_ATTRIBUTE);
+        if (exceeded != null) {
+            throw new IllegalStateException("Limite de SQL excedido: " + exceeded);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.libraryapi.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*ENDPOINT SEM @SqlBudget PORQUE SqlStatementCounter NAO ENXERGA OS SEUS COMANDOS: JdbcTemplate (FORA DO HIBERNATE) OU
+CONSULTAS EM OUTRA THREAD (jdbcScheduler, EXECUTOR ASSINCRONO DO MVC). UM LIMITE ALI NUNCA SERIA EXCEDIDO.
+value: ONDE OS COMANDOS RODAM E QUANTOS SAO*/
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudgetExempt {
+
+    String value();
+}
@@ -0,0 +1,45 @@
+package com.example.libraryapi.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/*CONTA OS COMANDOS SQL PREPARADOS PELO HIBERNATE NA THREAD ATUAL (UMA REQUISICAO HTTP POR THREAD).
+REGISTRADO COMO hibernate.session_factory.statement_inspector EM MetricsConfig*/
+public class SqlStatementCounter implements StatementInspector {
+
+    /*[TOTAL, TOTAL NO INICIO DO LOTE ATUAL, MAIOR LOTE ENCERRADO]*/
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[3]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql;
+    }
+
+    public static void reset() {
+        int[] count = COUNT.get();
+        count[0] = 0;
+        count[1] = 0;
+        count[2] = 0;
+    }
+
+    public static int current() {
+        return COUNT.get()[0];
+    }
+
+    /*FIM DE UM LOTE DE UM ENDPOINT @SqlBudget(perChunk = true)*/
+    public static void endChunk() {
+        int[] count = COUNT.get();
+        count[2] = Math.max(count[2], count[0] - count[1]);
+        count[1] = count[0];
+    }
+
+    /*COMANDOS DO MAIOR LOTE, CONTANDO O LOTE AINDA ABERTO*/
+    public static int maxChunk() {
+        int[] count = COUNT.get();
+        return Math.max(count[2], count[0] - count[1]);
+    }
+
+    public static void clear() {
+        COUNT.remove();
+    }
+}
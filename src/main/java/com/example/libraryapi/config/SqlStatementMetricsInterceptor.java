@@ -0,0 +1,61 @@
+package com.example.libraryapi.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/*REGISTRA QUANTOS COMANDOS SQL CADA REQUISICAO EXECUTOU (library.http.sql.statements), POR METODO E PADRAO DE URI,
+E CONFERE O LIMITE DECLARADO COM @SqlBudget NO METODO DO CONTROLLER*/
+public class SqlStatementMetricsInterceptor implements HandlerInterceptor {
+
+    /*ATRIBUTO DA REQUISICAO COM A DESCRICAO DO ESTOURO, LIDO POR SqlBudgetEnforcingFilter*/
+    public static final String BUDGET_EXCEEDED_ATTRIBUTE = SqlStatementMetricsInterceptor.class.getName() + ".BUDGET_EXCEEDED";
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementMetricsInterceptor.class);
+
+    private final MeterRegistry registry;
+
+    public SqlStatementMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SqlStatementCounter.reset();
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        int statements = SqlStatementCounter.current();
+        int chunkStatements = SqlStatementCounter.maxChunk();
+        SqlStatementCounter.clear();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern == null ? "UNKNOWN" : pattern.toString();
+        DistributionSummary.builder("library.http.sql.statements")
+                .description("Comandos SQL executados por requisicao")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(registry)
+                .record(statements);
+
+        SqlBudget budget = handler instanceof HandlerMethod
+                ? ((HandlerMethod) handler).getMethodAnnotation(SqlBudget.class)
+                : null;
+        int counted = budget != null && budget.perChunk() ? chunkStatements : statements;
+        if (budget != null && counted > budget.value()) {
+            String message = String.format("%s %s executou %d comandos SQL%s (limite %d)",
+                    request.getMethod(), uri, counted, budget.perChunk() ? " em um lote" : "", budget.value());
+            log.warn(message);
+            registry.counter("library.http.sql.budget.exceeded", "method", request.getMethod(), "uri", uri).increment();
+            request.setAttribute(BUDGET_EXCEEDED_ATTRIBUTE, message);
+        }
+    }
+}
@@ -1,24 +1,40 @@
 package com.example.libraryapi.model.entity;
 
+import com.example.libraryapi.service.impl.BookAvailabilityIndexListener;
+import com.example.libraryapi.service.impl.BookSearchIndexListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
 @Table
+@DynamicUpdate/*O UPDATE ESCREVE APENAS AS COLUNAS ALTERADAS*/
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)/*LIDO MUITO MAIS DO QUE ESCRITO*/
+@EntityListeners({BookSearchIndexListener.class, BookAvailabilityIndexListener.class})
 public class Book {
 
+    public static final String CACHE_REGION = "book";
+
+    public static final String ISBN_CONSTRAINT = "uk_book_isbn";
+
     @Id
     @Column
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)/*IDENTITY DESLIGA O BATCH DE INSERTS DO HIBERNATE*/
     private Long id;
 
     @Column
@@ -27,9 +43,25 @@ public class Book {
     @Column
     private String author;
 
-    @Column
+    @Column(unique = true)
     private String isbn;
 
+    /*CONTROLE DE CONCORRENCIA OTIMISTA: UPDATE ... WHERE version = ?; TAMBEM E A ETag DE GET /api/books/{id}*/
+    @Version
+    @Column
+    private Long version;
+
+    /*BASE DO Last-Modified DE GET /api/books/{id}*/
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
     @OneToMany(mappedBy = "book")
     private List<Loan> loans;
+
+    /*TRUNCADO EM MICROSSEGUNDOS, A PRECISAO DA COLUNA, PARA O Last-Modified NAO MUDAR AO RECARREGAR DO BANCO*/
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        updatedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+    }
 }
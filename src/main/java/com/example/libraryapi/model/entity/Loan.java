@@ -1,9 +1,13 @@
 package com.example.libraryapi.model.entity;
 
+import com.example.libraryapi.service.impl.BookAvailabilityIndexListener;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.time.LocalDate;
@@ -13,8 +17,13 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @Builder
 @Entity
+@DynamicUpdate/*A DEVOLUCAO ATUALIZA APENAS returned, active_book_id E version*/
+@EntityListeners(BookAvailabilityIndexListener.class)
+@Table(uniqueConstraints = @UniqueConstraint(name = Loan.ACTIVE_BOOK_CONSTRAINT, columnNames = "active_book_id"))
 public class Loan {
 
+    public static final String ACTIVE_BOOK_CONSTRAINT = "uk_loan_active_book";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column
@@ -33,4 +42,21 @@ public class Loan {
     @Column
     private Boolean returned;
 
+    /*ID DO LIVRO ENQUANTO O EMPRESTIMO ESTA ATIVO E NULL DEPOIS DA DEVOLUCAO: O INDICE UNICO (QUE ACEITA VARIOS NULL)
+    GARANTE NO PROPRIO INSERT QUE SO EXISTE UM EMPRESTIMO ATIVO POR LIVRO*/
+    @Column(name = "active_book_id")
+    @Setter(AccessLevel.NONE)
+    private Long activeBookId;
+
+    /*DUAS DEVOLUCOES CONCORRENTES DO MESMO EMPRESTIMO: A SEGUNDA FALHA EM VEZ DE SOBRESCREVER A PRIMEIRA*/
+    @Version
+    @Column
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    void syncActiveBook() {
+        this.activeBookId = book == null || Boolean.TRUE.equals(returned) ? null : book.getId();
+    }
+
 }
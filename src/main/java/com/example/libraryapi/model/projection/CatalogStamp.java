@@ -0,0 +1,20 @@
+package com.example.libraryapi.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/*ESTADO DO CATALOGO LIDO DO BANCO: QUANTIDADE DE LIVROS E O updated_at MAIS RECENTE. INCLUSAO E ALTERACAO MUDAM O
+lastModified; EXCLUSAO MUDA A QUANTIDADE*/
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogStamp {
+
+    private Long books;
+    private Instant lastModified;
+}
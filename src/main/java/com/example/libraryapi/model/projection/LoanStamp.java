@@ -0,0 +1,19 @@
+package com.example.libraryapi.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*ESTADO DOS EMPRESTIMOS LIDO DO BANCO: QUANTIDADE, MAIOR id E SOMA DAS VERSOES. UM NOVO EMPRESTIMO MUDA O lastId,
+UMA DEVOLUCAO (INDIVIDUAL OU EM MASSA) INCREMENTA A version E MUDA A SOMA, UMA EXCLUSAO MUDA A QUANTIDADE*/
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanStamp {
+
+    private Long loans;
+    private Long lastId;
+    private Long versions;
+}
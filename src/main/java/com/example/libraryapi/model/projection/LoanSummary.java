@@ -0,0 +1,25 @@
+package com.example.libraryapi.model.projection;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/*PROJECAO DO EMPRESTIMO COM AS COLUNAS DO LIVRO, CARREGADA EM UMA UNICA CONSULTA E SEM ENTIDADES GERENCIADAS*/
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanSummary {
+
+    private Long id;
+    private String customer;
+    private LocalDate loanDate;
+    private Boolean returned;
+    private Long bookId;
+    private String isbn;
+    private String title;
+    private String author;
+}
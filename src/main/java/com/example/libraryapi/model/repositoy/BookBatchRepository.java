@@ -0,0 +1,11 @@
+package com.example.libraryapi.model.repositoy;
+
+import com.example.libraryapi.model.entity.Book;
+
+import java.util.List;
+
+public interface BookBatchRepository {
+
+    /*GRAVA OS LIVROS EM BATCH E LIMPA O CONTEXTO DE PERSISTENCIA PARA O HEAP NAO CRESCER ENTRE OS LOTES*/
+    List<Book> insertAll(List<Book> books);
+}
@@ -0,0 +1,23 @@
+package com.example.libraryapi.model.repositoy;
+
+import com.example.libraryapi.model.entity.Book;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+public class BookBatchRepositoryImpl implements BookBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public List<Book> insertAll(List<Book> books) {
+        books.forEach(entityManager::persist);
+        entityManager.flush();
+        entityManager.clear();
+        return books;
+    }
+}
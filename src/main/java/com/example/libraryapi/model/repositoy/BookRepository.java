@@ -1,13 +1,89 @@
 package com.example.libraryapi.model.repositoy;
 
 import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.projection.CatalogStamp;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+public interface BookRepository extends JpaRepository<Book,Long>, BookBatchRepository {
+
+    String ISBN_CACHE_REGION = "bookIsbn";
 
-public interface BookRepository extends JpaRepository<Book,Long> {
     boolean existsByIsbn(String isbn);
 
+    /*CACHE DE CONSULTA: GUARDA SO O ID, O LIVRO VEM DA REGIAO book; QUALQUER ESCRITA EM book INVALIDA*/
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"), @QueryHint(name = HINT_CACHE_REGION, value = ISBN_CACHE_REGION)})
     Optional<Book> findByIsbn(String isbn);
 
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    /*VALIDADOR DAS LISTAGENS (CatalogVersion): O MESMO EM TODAS AS INSTANCIAS, POIS VEM DO BANCO*/
+    @Query(value = "select new com.example.libraryapi.model.projection.CatalogStamp(count(b), max(b.updatedAt)) from Book b")
+    CatalogStamp findCatalogStamp();
+
+    @Query(value = "select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    /*PAGINACAO POR CHAVE COM OS MESMOS FILTROS DO find (CONTAINING, IGNORE CASE), SEM OFFSET E SEM COUNT*/
+    @Query(value = "select b from Book b where b.id > :afterId " +
+            "and (:title is null or lower(b.title) like lower(concat('%', :title, '%'))) " +
+            "and (:author is null or lower(b.author) like lower(concat('%', :author, '%'))) " +
+            "and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%'))) " +
+            "order by b.id")
+    List<Book> findAfter(
+            @Param("title") String title,
+            @Param("author") String author,
+            @Param("isbn") String isbn,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    String BOOK_FILTER = "(:title is null or lower(b.title) like lower(concat('%', :title, '%'))) " +
+            "and (:author is null or lower(b.author) like lower(concat('%', :author, '%'))) " +
+            "and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))";
+
+    String LOANED = "exists (select l.id from Loan l where l.activeBookId = b.id)";
+
+    /*DISPONIBILIDADE PELO BANCO (INDICE UNICO DE active_book_id), USADA QUANDO O INDICE EM MEMORIA ESTA DESLIGADO*/
+    @Query(value = "select b from Book b where " + BOOK_FILTER + " and not " + LOANED + " order by b.id",
+            countQuery = "select count(b) from Book b where " + BOOK_FILTER + " and not " + LOANED)
+    Page<Book> findAvailable(
+            @Param("title") String title,
+            @Param("author") String author,
+            @Param("isbn") String isbn,
+            Pageable pageable);
+
+    @Query(value = "select b from Book b where " + BOOK_FILTER + " and " + LOANED + " order by b.id",
+            countQuery = "select count(b) from Book b where " + BOOK_FILTER + " and " + LOANED)
+    Page<Book> findLoaned(
+            @Param("title") String title,
+            @Param("author") String author,
+            @Param("isbn") String isbn,
+            Pageable pageable);
+
+    /*SO OS IDS, EM CURSOR, COM OS MESMOS FILTROS DO find: CANDIDATOS DO FILTRO DE DISPONIBILIDADE E CARGA DO INDICE*/
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(value = "select b.id from Book b where " +
+            "(:title is null or lower(b.title) like lower(concat('%', :title, '%'))) " +
+            "and (:author is null or lower(b.author) like lower(concat('%', :author, '%'))) " +
+            "and (:isbn is null or lower(b.isbn) like lower(concat('%', :isbn, '%')))")
+    Stream<Long> streamIds(
+            @Param("title") String title,
+            @Param("author") String author,
+            @Param("isbn") String isbn);
+
 }
@@ -2,23 +2,172 @@ package com.example.libraryapi.model.repositoy;
 
 import com.example.libraryapi.model.entity.Book;
 import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanStamp;
+import com.example.libraryapi.model.projection.LoanSummary;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
+    /*"isbn = ? OR customer = ?" CRUZA DUAS TABELAS E OBRIGA O BANCO A VARRER loan; COM UNION CADA RAMO USA O SEU
+    INDICE (uk_book_isbn + idx_loan_book_returned / idx_loan_customer). POR ISSO AS BUSCAS SAO EM DUAS ETAPAS:
+    PRIMEIRO A PAGINA DE IDS, DEPOIS AS LINHAS PELA CHAVE PRIMARIA*/
+    String IDS_BY_ISBN_OR_CUSTOMER = "select l.id, l.loan_date, l.customer from loan l join book b on b.id = l.id_book " +
+            "where b.isbn = :isbn union select l.id, l.loan_date, l.customer from loan l where l.customer = :customer";
+
+    /*PROPRIEDADES DE ORDENACAO SUPORTADAS PELAS BUSCAS POR isbn OU cliente*/
+    Set<String> SORT_KEYS = Set.of("id", "loanDate", "customer");
+
+    /*ORDEM DA PAGINA DE IDS PELA CHAVE DE SORT_KEYS (:sortKey) NA DIRECAO PEDIDA, COM id NA MESMA DIRECAO COMO DESEMPATE
+    PARA A PAGINACAO SER ESTAVEL. O UNION JA PRECISA SER ORDENADO INTEIRO, ENTAO A CHAVE NAO MUDA O CUSTO*/
+    String ORDER_BY_SORT_KEY = " order by " +
+            "case when :sortKey = 'loanDate' and :descending = false then s.loan_date end asc, " +
+            "case when :sortKey = 'loanDate' and :descending = true then s.loan_date end desc, " +
+            "case when :sortKey = 'customer' and :descending = false then s.customer end asc, " +
+            "case when :sortKey = 'customer' and :descending = true then s.customer end desc, " +
+            "case when :descending = false then s.id end asc, " +
+            "case when :descending = true then s.id end desc";
+
+    String LOAN_SUMMARY = "select new com.example.libraryapi.model.projection.LoanSummary(" +
+            "l.id, l.customer, l.loanDate, l.returned, b.id, b.isbn, b.title, b.author) ";
+
+    /*SEM CACHE DE CONSULTA: O CODIGO DE PRODUCAO NAO PERGUNTA ANTES DE EMPRESTAR, O INDICE UNICO uk_loan_active_book
+    JA REJEITA O SEGUNDO EMPRESTIMO ATIVO*/
     @Query(value = "select case when (count(l.id) > 0) then true else false end " +
             "from Loan l where l.book = :book and (l.returned is null or l.returned is false)")
     boolean existsByBookAndNotReturned(@Param("book") Book book);
 
-    @Query(value = "select l from Loan as l join l.book as b where b.isbn =:isbn or l.customer =:customer")
-    Page<Loan> findByBookIsbnOrCustomer(
+    /*ORDENACAO POR UMA DAS SORT_KEYS (ASC OU DESC; SO A PRIMEIRA ORDEM DO Sort CONTA, COM id DE DESEMPATE); O CONTROLLER
+    REJEITA AS DEMAIS COM 400*/
+    default Page<Loan> findByBookIsbnOrCustomer(String isbn, String customer, Pageable pageable) {
+        Page<Number> page = findIdsPage(isbn, customer, pageable);
+        List<Long> ids = toLongs(page.getContent());
+        List<Loan> loans = ids.isEmpty() ? Collections.emptyList() : findWithBookByIdIn(ids);
+        return new PageImpl<>(inPageOrder(loans, ids, Loan::getId), pageable, page.getTotalElements());
+    }
+
+    default Page<LoanSummary> searchSummaries(String isbn, String customer, Pageable pageable) {
+        Page<Number> page = findIdsPage(isbn, customer, pageable);
+        List<Long> ids = toLongs(page.getContent());
+        List<LoanSummary> loans = ids.isEmpty() ? Collections.emptyList() : findSummariesByIdIn(ids);
+        return new PageImpl<>(inPageOrder(loans, ids, LoanSummary::getId), pageable, page.getTotalElements());
+    }
+
+    /*PAGINACAO POR CHAVE (SEEK): SEM OFFSET E SEM CONSULTA DE COUNT, O Pageable SO LIMITA O TAMANHO*/
+    default List<LoanSummary> searchSummariesAfter(String isbn, String customer, Long afterId, Pageable pageable) {
+        List<Number> ids = findIdsByBookIsbnOrCustomerAfter(isbn, customer, afterId, unsorted(pageable));
+        return ids.isEmpty() ? Collections.emptyList() : findSummariesByIdIn(toLongs(ids));
+    }
+
+    /*O SORT DO Pageable NAO SE APLICA AO UNION: A CHAVE E A DIRECAO VAO COMO PARAMETROS DE ORDER_BY_SORT_KEY*/
+    @Query(value = "select s.id from (" + IDS_BY_ISBN_OR_CUSTOMER + ") s" + ORDER_BY_SORT_KEY,
+            countQuery = "select count(*) from (" + IDS_BY_ISBN_OR_CUSTOMER + ") s",
+            nativeQuery = true)
+    Page<Number> findIdsByBookIsbnOrCustomer(
+            @Param("isbn") String isbn,
+            @Param("customer") String customer,
+            @Param("sortKey") String sortKey,
+            @Param("descending") boolean descending,
+            Pageable pageable);
+
+    @Query(value = "select s.id from (" + IDS_BY_ISBN_OR_CUSTOMER + ") s where s.id > :afterId order by s.id",
+            nativeQuery = true)
+    List<Number> findIdsByBookIsbnOrCustomerAfter(
             @Param("isbn") String isbn,
             @Param("customer") String customer,
+            @Param("afterId") Long afterId,
             Pageable pageable);
 
-    Page<Loan> findByBook(Book book, Pageable pageable);
+    @Query(value = "select l from Loan l join fetch l.book where l.id in :ids order by l.id")
+    List<Loan> findWithBookByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = LOAN_SUMMARY + "from Loan l join l.book b where l.id in :ids order by l.id")
+    List<LoanSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(value = LOAN_SUMMARY + "from Loan l join l.book b where b.isbn in :isbns and l.activeBookId is not null")
+    List<LoanSummary> findActiveSummariesByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    /*DEVOLUCAO EM MASSA: O UPDATE EM JPQL NAO PASSA PELO @PreUpdate NEM PELO @Version DA ENTIDADE,
+    POR ISSO active_book_id E LIMPO E version E INCREMENTADA AQUI*/
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Loan l set l.returned = true, l.activeBookId = null, l.version = l.version + 1 where l.id in :ids and l.activeBookId is not null")
+    int markReturned(@Param("ids") Collection<Long> ids);
+
+    /*HISTORICO DO LIVRO EM UMA CONSULTA (MAIS O COUNT), RESOLVIDA PELO INDICE idx_loan_book_history*/
+    @Query(value = LOAN_SUMMARY + "from Loan l join l.book b where b.id = :bookId",
+            countQuery = "select count(l.id) from Loan l where l.book.id = :bookId")
+    Page<LoanSummary> findSummariesByBookId(@Param("bookId") Long bookId, Pageable pageable);
+
+    @Query(LOAN_SUMMARY + "from Loan l join l.book b where b.id = :bookId and l.id > :afterId order by l.id")
+    List<LoanSummary> findSummariesByBookIdAfter(@Param("bookId") Long bookId, @Param("afterId") Long afterId,
+                                                 Pageable pageable);
+
+    /*LEITURA POR CURSOR DOS EMPRESTIMOS ATIVOS COM DATA ATE dueBefore; PRECISA DE TRANSACAO ABERTA E DE FECHAR O STREAM*/
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query(value = LOAN_SUMMARY + "from Loan l join l.book b " +
+            "where l.activeBookId is not null and l.loanDate <= :dueBefore order by l.id")
+    Stream<LoanSummary> streamOverdue(@Param("dueBefore") LocalDate dueBefore);
+
+    /*VALIDADOR DA LISTAGEM POR DISPONIBILIDADE (LoanVersion): O MESMO EM TODAS AS INSTANCIAS, POIS VEM DO BANCO*/
+    @Query("select new com.example.libraryapi.model.projection.LoanStamp(count(l), max(l.id), sum(l.version)) from Loan l")
+    LoanStamp findLoanStamp();
+
+    /*LIVROS COM EMPRESTIMO ATIVO (INDICE UNICO DE active_book_id), PARA A CARGA DO INDICE DE DISPONIBILIDADE*/
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select l.activeBookId from Loan l where l.activeBookId is not null")
+    Stream<Long> streamLoanedBookIds();
+
+    private static List<Long> toLongs(List<Number> ids) {
+        return ids.stream().map(Number::longValue).collect(Collectors.toList());
+    }
+
+    private Page<Number> findIdsPage(String isbn, String customer, Pageable pageable) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        if (!SORT_KEYS.contains(order.getProperty())) {
+            throw new IllegalArgumentException("Sort must be by one of " + SORT_KEYS);
+        }
+        return findIdsByBookIsbnOrCustomer(isbn, customer, order.getProperty(), order.isDescending(), unsorted(pageable));
+    }
+
+    /*AS LINHAS VEM POR id CRESCENTE DA CHAVE PRIMARIA; A PAGINA VOLTA PARA A ORDEM DOS IDS*/
+    private static <T> List<T> inPageOrder(List<T> rows, List<Long> ids, Function<T, Long> id) {
+        Map<Long, T> byId = rows.stream().collect(Collectors.toMap(id, Function.identity()));
+        List<T> ordered = new ArrayList<>(ids.size());
+        for (Long rowId : ids) {
+            T row = byId.get(rowId);
+            if (row != null) {
+                ordered.add(row);
+            }
+        }
+        return ordered;
+    }
+
+    private static Pageable unsorted(Pageable pageable) {
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
+    }
 }
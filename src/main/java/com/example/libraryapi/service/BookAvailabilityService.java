@@ -0,0 +1,15 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+public interface BookAvailabilityService {
+
+    Page<Book> find(Book filter, boolean available, Pageable pageable);
+
+    /*VERSAO DOS EMPRESTIMOS LIDA DO BANCO (LoanVersion) E CARGA DO INDICE DESTA INSTANCIA, PARA A ETag DA LISTAGEM*/
+    String version();
+
+    void rebuild();
+}
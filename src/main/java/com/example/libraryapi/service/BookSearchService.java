@@ -0,0 +1,15 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+
+import java.util.List;
+
+public interface BookSearchService {
+
+    List<Book> search(String query, int limit);
+
+    /*CARGA DO INDICE DE BUSCA DESTA INSTANCIA, PARA A ETag DA BUSCA*/
+    String version();
+
+    void rebuild();
+}
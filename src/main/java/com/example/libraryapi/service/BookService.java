@@ -1,9 +1,13 @@
 package com.example.libraryapi.service;
 
+import com.example.libraryapi.api.dto.BookImportResultDTO;
 import com.example.libraryapi.model.entity.Book;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface BookService {
@@ -17,5 +21,14 @@ public interface BookService {
 
     Page<Book> find(Book filter, Pageable pageRequest);
 
+    List<Book> findAfter(Book filter, Long afterId, int size);
+
     Optional<Book> getBookByIsbn(String isbn);
+
+    /*BUSCA EM LOTE: SO AS CHAVES ENCONTRADAS ENTRAM NO MAPA*/
+    Map<Long, Book> getByIds(Collection<Long> ids);
+
+    Map<String, Book> getByIsbns(Collection<String> isbns);
+
+    List<BookImportResultDTO> saveAll(List<Book> books);
 }
@@ -0,0 +1,74 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.projection.CatalogStamp;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/*VERSAO DO CATALOGO DE LIVROS, USADA COMO ETag E Last-Modified DAS LISTAGENS. VEM DO BANCO (QUANTIDADE DE LIVROS +
+updated_at MAIS RECENTE, VEJA CatalogStamp), ENTAO TODAS AS INSTANCIAS ATRAS DA CDN CALCULAM O MESMO VALOR E UMA ESCRITA
+FEITA EM OUTRA INSTANCIA TAMBEM MUDA A ETag. A LEITURA FICA GUARDADA POR library.catalog.version-ttl: OUTRA INSTANCIA
+ENXERGA A MUDANCA EM NO MAXIMO ESSE TEMPO; AS ESCRITAS DESTA INSTANCIA (CachingBookService) DESCARTAM A LEITURA NA HORA*/
+@Component
+public class CatalogVersion {
+
+    private final BookRepository repository;
+    private final long ttlNanos;
+    private volatile Snapshot snapshot;
+
+    public CatalogVersion(BookRepository repository,
+                          @Value("${library.catalog.version-ttl:1s}") Duration ttl) {
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public void increment() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            snapshot = new Snapshot(current.etag, current.lastModified, System.nanoTime() - ttlNanos - 1);
+        }
+    }
+
+    public String etag() {
+        return current().etag;
+    }
+
+    public Instant lastModified() {
+        return current().lastModified;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current != null && now - current.readAt < ttlNanos) {
+            return current;
+        }
+        CatalogStamp stamp = repository.findCatalogStamp();
+        Instant newest = stamp.getLastModified() == null ? Instant.EPOCH : stamp.getLastModified();
+        String etag = stamp.getBooks() + "-" + ChronoUnit.MICROS.between(Instant.EPOCH, newest);
+        Instant lastModified = newest;
+        /*UMA EXCLUSAO NAO AVANCA O updated_at: O Last-Modified AVANCA PARA O MOMENTO EM QUE A MUDANCA FOI VISTA*/
+        if (current != null && !current.etag.equals(etag) && !newest.isAfter(current.lastModified)) {
+            lastModified = Instant.now();
+        }
+        Snapshot refreshed = new Snapshot(etag, lastModified, now);
+        snapshot = refreshed;
+        return refreshed;
+    }
+
+    private static final class Snapshot {
+        private final String etag;
+        private final Instant lastModified;
+        private final long readAt;
+
+        private Snapshot(String etag, Instant lastModified, long readAt) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.readAt = readAt;
+        }
+    }
+}
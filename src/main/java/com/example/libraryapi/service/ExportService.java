@@ -0,0 +1,11 @@
+package com.example.libraryapi.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExportService {
+
+    void exportBooks(ExportFormat format, OutputStream out) throws IOException;
+
+    void exportLoans(ExportFormat format, OutputStream out) throws IOException;
+}
@@ -0,0 +1,11 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.projection.LoanSummary;
+
+import java.util.List;
+
+/*DESTINO DAS NOTIFICACOES DE ATRASO (EMAIL, FILA, ETC). RECEBE UM LOTE LIMITADO POR VEZ E PODE SER CHAMADO EM PARALELO*/
+public interface LoanNotifier {
+
+    void notifyOverdue(List<LoanSummary> loans);
+}
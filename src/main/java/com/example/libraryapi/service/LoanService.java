@@ -1,11 +1,13 @@
 package com.example.libraryapi.service;
 
 import com.example.libraryapi.api.dto.LoanFilterDTO;
-import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.api.dto.LoanReturnResultDTO;
 import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface LoanService {
@@ -16,7 +18,13 @@ public interface LoanService {
 
     Loan update(Loan loan);
 
-    Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable);
+    Page<LoanSummary> find(LoanFilterDTO filterDTO, Pageable pageable);
 
-    Page<Loan> getLoansByBook(Book book, Pageable pageable);
+    List<LoanSummary> findAfter(LoanFilterDTO filterDTO, Long afterId, int size);
+
+    Page<LoanSummary> getLoansByBook(Long bookId, Pageable pageable);
+
+    List<LoanSummary> getLoansByBookAfter(Long bookId, Long afterId, int size);
+
+    List<LoanReturnResultDTO> returnAll(List<Long> ids, List<String> isbns);
 }
@@ -0,0 +1,66 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.projection.LoanStamp;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/*VERSAO DOS EMPRESTIMOS, USADA NA ETag DA LISTAGEM POR DISPONIBILIDADE. COMO A CatalogVersion, VEM DO BANCO (VEJA
+LoanStamp): O MESMO VALOR EM TODAS AS INSTANCIAS E DEPOIS DE UM RESTART. A LEITURA FICA GUARDADA POR
+library.catalog.version-ttl; AS ESCRITAS DESTA INSTANCIA (LoanServiceImpl) DESCARTAM A LEITURA DEPOIS DO COMMIT*/
+@Component
+public class LoanVersion {
+
+    private final LoanRepository repository;
+    private final long ttlNanos;
+    private volatile Snapshot snapshot;
+
+    public LoanVersion(LoanRepository repository,
+                       @Value("${library.catalog.version-ttl:1s}") Duration ttl) {
+        this.repository = repository;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public void increment() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    snapshot = null;
+                }
+            });
+        } else {
+            snapshot = null;
+        }
+    }
+
+    public String etag() {
+        Snapshot current = snapshot;
+        long now = System.nanoTime();
+        if (current != null && now - current.readAt < ttlNanos) {
+            return current.etag;
+        }
+        LoanStamp stamp = repository.findLoanStamp();
+        String etag = stamp.getLoans() + "-" + value(stamp.getLastId()) + "-" + value(stamp.getVersions());
+        snapshot = new Snapshot(etag, now);
+        return etag;
+    }
+
+    private static long value(Long aggregate) {
+        return aggregate == null ? 0 : aggregate;
+    }
+
+    private static final class Snapshot {
+        private final String etag;
+        private final long readAt;
+
+        private Snapshot(String etag, long readAt) {
+            this.etag = etag;
+            this.readAt = readAt;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.libraryapi.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueLoanRun {
+
+    private LocalDate dueBefore;
+    private long loans;
+    private long batches;
+    private long notified;
+    private long failed;
+    private long durationMillis;
+    private double loansPerSecond;
+}
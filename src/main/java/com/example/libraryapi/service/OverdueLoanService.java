@@ -0,0 +1,10 @@
+package com.example.libraryapi.service;
+
+import java.time.LocalDate;
+
+public interface OverdueLoanService {
+
+    OverdueLoanRun detectOverdueLoans();
+
+    OverdueLoanRun detectOverdueLoans(LocalDate today);
+}
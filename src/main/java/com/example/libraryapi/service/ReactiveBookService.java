@@ -0,0 +1,11 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveBookService {
+    Mono<Book> getById(Long id);
+
+    Flux<Book> find(Book filter);
+}
@@ -0,0 +1,11 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.model.projection.LoanSummary;
+import reactor.core.publisher.Flux;
+
+public interface ReactiveLoanService {
+    Flux<LoanSummary> find(LoanFilterDTO filterDTO);
+
+    Flux<LoanSummary> getLoansByBook(Long bookId);
+}
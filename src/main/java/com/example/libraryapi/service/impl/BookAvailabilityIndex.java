@@ -0,0 +1,200 @@
+package com.example.libraryapi.service.impl;
+
+import lombok.Value;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/*INDICE DE DISPONIBILIDADE EM MEMORIA: DOIS BITMAPS COMPRIMIDOS (ROARING) DE IDS DE LIVROS, OS DISPONIVEIS E OS EMPRESTADOS.
+UM MILHAO DE IDS SEQUENCIAIS OCUPA POUCAS DEZENAS DE KB, E CONTAGEM, INTERSECAO COM O FILTRO E SALTO ATE O OFFSET DA PAGINA
+NAO PERCORREM OS IDS UM A UM. AS ALTERACOES SO SAO APLICADAS DEPOIS DO COMMIT DA TRANSACAO QUE AS CAUSOU.
+OS BITMAPS SAO DE int: UM ID ACIMA DE Integer.MAX_VALUE DESLIGA O INDICE (overflow) E A LISTAGEM PASSA A SER RESPONDIDA
+PELO BANCO (BookAvailabilityServiceImpl)*/
+@Component
+public class BookAvailabilityIndex {
+
+    private RoaringBitmap available = new RoaringBitmap();
+    private RoaringBitmap loaned = new RoaringBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /*ALTERACOES CONFIRMADAS DURANTE UMA CARGA: OS STREAMS PODEM TER SIDO LIDOS ANTES DELAS, ENTAO SAO REAPLICADAS DEPOIS
+    DA TROCA DOS BITMAPS. TODAS SAO IDEMPOTENTES. NULL FORA DE UMA CARGA; PROTEGIDO PELO lock*/
+    private List<Runnable> changedDuringLoad;
+    private volatile boolean overflow;
+    /*IDENTIFICA OS BITMAPS DESTE PROCESSO NA ETag: INSTANCIA (ALEATORIA A CADA INICIO) E NUMERO DA CARGA*/
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong generation = new AtomicLong();
+
+    public void added(Long bookId) {
+        afterCommit(() -> {
+            if (!fits(bookId)) {
+                overflow = true;
+                return;
+            }
+            int id = toInt(bookId);
+            if (!loaned.contains(id)) {
+                available.add(id);
+            }
+        });
+    }
+
+    public void removed(Long bookId) {
+        afterCommit(() -> {
+            if (fits(bookId)) {
+                int id = toInt(bookId);
+                available.remove(id);
+                loaned.remove(id);
+            }
+        });
+    }
+
+    public void loaned(Long bookId) {
+        afterCommit(() -> {
+            if (!fits(bookId)) {
+                overflow = true;
+                return;
+            }
+            int id = toInt(bookId);
+            available.remove(id);
+            loaned.add(id);
+        });
+    }
+
+    /*SO VOLTA A FICAR DISPONIVEL O LIVRO QUE ESTAVA EMPRESTADO: UM LIVRO EXCLUIDO NAO REAPARECE*/
+    public void returned(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> bookIds.forEach(bookId -> {
+            if (fits(bookId) && loaned.checkedRemove(toInt(bookId))) {
+                available.add(toInt(bookId));
+            }
+        }));
+    }
+
+    /*CARGA COMPLETA: OS NOVOS BITMAPS SAO MONTADOS FORA DO LOCK E TROCADOS DE UMA VEZ. O QUE FOR CONFIRMADO ENQUANTO OS
+    STREAMS SAO LIDOS E REAPLICADO SOBRE OS NOVOS BITMAPS. UMA CARGA POR VEZ*/
+    public synchronized void load(Stream<Long> bookIds, Stream<Long> loanedBookIds) {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        RoaringBitmap books = null;
+        RoaringBitmap loanedBooks = null;
+        try {
+            books = toBitmap(bookIds);
+            loanedBooks = toBitmap(loanedBookIds);
+        } catch (ArithmeticException e) {
+            overflow = true;
+        }
+        if (books != null) {
+            loanedBooks.and(books);
+            books.andNot(loanedBooks);
+            books.runOptimize();
+            loanedBooks.runOptimize();
+        }
+        lock.writeLock().lock();
+        try {
+            if (books != null) {
+                available = books;
+                loaned = loanedBooks;
+                changedDuringLoad.forEach(Runnable::run);
+                generation.incrementAndGet();
+            }
+            changedDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*AS ALTERACOES DE OUTRAS INSTANCIAS SO CHEGAM AQUI NA PROXIMA CARGA: DUAS INSTANCIAS (OU A MESMA DEPOIS DE REINICIAR)
+    COM A MESMA VERSAO DO BANCO PODEM TER BITMAPS DIFERENTES, ENTAO A ETag PRECISA DIZER DE QUAIS BITMAPS A PAGINA VEIO*/
+    public String generation() {
+        return instance + "." + generation.get();
+    }
+
+    /*true QUANDO ALGUM ID NAO CABE EM int: O INDICE NAO REPRESENTA MAIS O CATALOGO INTEIRO*/
+    public boolean overflow() {
+        return overflow;
+    }
+
+    /*PAGINA EM ORDEM DE ID DOS LIVROS DISPONIVEIS (OU EMPRESTADOS) ENTRE OS CANDIDATOS; candidates NULL = TODO O CATALOGO*/
+    public IdPage page(RoaringBitmap candidates, boolean availableBooks, long offset, int size) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap source = availableBooks ? available : loaned;
+            RoaringBitmap matches = candidates == null ? source : RoaringBitmap.and(candidates, source);
+            long total = matches.getLongCardinality();
+            if (offset >= total || size < 1) {
+                return new IdPage(Collections.emptyList(), total);
+            }
+            List<Long> ids = new ArrayList<>(size);
+            PeekableIntIterator iterator = matches.getIntIterator();
+            iterator.advanceIfNeeded(matches.select((int) offset));
+            while (iterator.hasNext() && ids.size() < size) {
+                ids.add((long) iterator.next());
+            }
+            return new IdPage(ids, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*ArithmeticException QUANDO UM ID NAO CABE EM int*/
+    static RoaringBitmap toBitmap(Stream<Long> ids) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        ids.forEach(id -> bitmap.add(toInt(id)));
+        return bitmap;
+    }
+
+    private static int toInt(Long id) {
+        return Math.toIntExact(id);
+    }
+
+    static boolean fits(Long id) {
+        return id >= 0 && id <= Integer.MAX_VALUE;
+    }
+
+    private void afterCommit(Runnable change) {
+        Runnable locked = () -> {
+            lock.writeLock().lock();
+            try {
+                change.run();
+                if (changedDuringLoad != null) {
+                    changedDuringLoad.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    locked.run();
+                }
+            });
+        } else {
+            locked.run();
+        }
+    }
+
+    @Value
+    public static class IdPage {
+        List<Long> ids;
+        long total;
+    }
+}
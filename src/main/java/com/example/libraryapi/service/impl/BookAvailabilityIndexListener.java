@@ -0,0 +1,56 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import java.util.List;
+
+/*LISTENER JPA DO Book E DO Loan: CADASTRO/EXCLUSAO DE LIVRO E EMPRESTIMO/DEVOLUCAO ATUALIZAM O INDICE DE DISPONIBILIDADE.
+A DEVOLUCAO EM MASSA (UPDATE EM LOTE, SEM EVENTOS JPA) E AVISADA PELO LoanServiceImpl*/
+@Component
+public class BookAvailabilityIndexListener {
+
+    private final ObjectProvider<BookAvailabilityIndex> index;
+
+    public BookAvailabilityIndexListener(ObjectProvider<BookAvailabilityIndex> index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (entity instanceof Book) {
+            index.ifAvailable(availability -> availability.added(((Book) entity).getId()));
+        } else if (entity instanceof Loan) {
+            onLoanChange((Loan) entity);
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        if (entity instanceof Loan) {
+            onLoanChange((Loan) entity);
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Book) {
+            index.ifAvailable(availability -> availability.removed(((Book) entity).getId()));
+        } else if (entity instanceof Loan && ((Loan) entity).getActiveBookId() != null) {
+            index.ifAvailable(availability -> availability.returned(List.of(((Loan) entity).getActiveBookId())));
+        }
+    }
+
+    private void onLoanChange(Loan loan) {
+        if (loan.getActiveBookId() != null) {
+            index.ifAvailable(availability -> availability.loaned(loan.getActiveBookId()));
+        } else if (loan.getBook() != null && loan.getBook().getId() != null) {
+            index.ifAvailable(availability -> availability.returned(List.of(loan.getBook().getId())));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import com.example.libraryapi.service.BookAvailabilityService;
+import com.example.libraryapi.service.LoanVersion;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/*LIVROS DISPONIVEIS (OU EMPRESTADOS) COM OS MESMOS FILTROS DO find, EM ORDEM DE ID. SEM FILTRO O BANCO SO E CONSULTADO
+PARA AS LINHAS DA PAGINA; COM FILTRO, UMA CONSULTA DE IDS MONTA O BITMAP DE CANDIDATOS. O TOTAL VEM DO INDICE.
+COM O INDICE DESLIGADO (ID ACIMA DE int) A PAGINA E O TOTAL VEM DO BANCO, PELO EXISTS EM active_book_id*/
+@Service
+public class BookAvailabilityServiceImpl implements BookAvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookAvailabilityServiceImpl.class);
+
+    private final BookAvailabilityIndex index;
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final LoanVersion loanVersion;
+
+    public BookAvailabilityServiceImpl(BookAvailabilityIndex index, BookRepository bookRepository,
+                                       LoanRepository loanRepository, LoanVersion loanVersion) {
+        this.index = index;
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.loanVersion = loanVersion;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Book> find(Book filter, boolean available, Pageable pageable) {
+        if (index.overflow()) {
+            return findInDatabase(filter, available, pageable);
+        }
+        RoaringBitmap candidates = null;
+        if (filter.getTitle() != null || filter.getAuthor() != null || filter.getIsbn() != null) {
+            try (Stream<Long> ids = bookRepository.streamIds(filter.getTitle(), filter.getAuthor(), filter.getIsbn())) {
+                candidates = BookAvailabilityIndex.toBitmap(ids);
+            } catch (ArithmeticException e) {
+                /*LIVRO COM ID ACIMA DE int CADASTRADO AGORA; O INDICE SE DESLIGA NO afterCommit DELE*/
+                return findInDatabase(filter, available, pageable);
+            }
+        }
+        BookAvailabilityIndex.IdPage page = index.page(candidates, available, pageable.getOffset(), pageable.getPageSize());
+        if (page.getIds().isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, page.getTotal());
+        }
+        Map<Long, Book> books = new HashMap<>();
+        bookRepository.findAllById(page.getIds()).forEach(book -> books.put(book.getId(), book));
+
+        /*ORDEM DO INDICE; UM LIVRO EXCLUIDO ENTRE A LEITURA DO INDICE E A DO BANCO FICA FORA DA PAGINA*/
+        List<Book> content = new ArrayList<>(page.getIds().size());
+        for (Long id : page.getIds()) {
+            Book book = books.get(id);
+            if (book != null) {
+                content.add(book);
+            }
+        }
+        return new PageImpl<>(content, pageable, page.getTotal());
+    }
+
+    /*O sort DO Pageable E IGNORADO, COMO NO INDICE: ORDEM DE ID*/
+    private Page<Book> findInDatabase(Book filter, boolean available, Pageable pageable) {
+        Pageable byId = pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
+        return available
+                ? bookRepository.findAvailable(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), byId)
+                : bookRepository.findLoaned(filter.getTitle(), filter.getAuthor(), filter.getIsbn(), byId);
+    }
+
+    /*VERSAO DOS EMPRESTIMOS NO BANCO + CARGA DO INDICE DESTA INSTANCIA (A PAGINA VEM DOS BITMAPS LOCAIS)*/
+    @Override
+    public String version() {
+        return index.overflow() ? loanVersion.etag() : loanVersion.etag() + "-" + index.generation();
+    }
+
+    /*CARGA INICIAL E RECARGA PERIODICA (library.availability.refresh-interval): UMA CONSULTA DE IDS DE LIVROS E UMA DE
+    LIVROS EMPRESTADOS. ENTRE AS CARGAS O INDICE E MANTIDO PELO BookAvailabilityIndexListener E PELA DEVOLUCAO EM MASSA,
+    QUE SO ENXERGAM AS ESCRITAS DESTA INSTANCIA: AS DE OUTRAS INSTANCIAS APARECEM AQUI EM ATE UM INTERVALO*/
+    @Override
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${library.availability.refresh-interval:PT30S}",
+            initialDelayString = "${library.availability.refresh-interval:PT30S}")
+    public void rebuild() {
+        try (Stream<Long> bookIds = bookRepository.streamIds(null, null, null);
+             Stream<Long> loanedBookIds = loanRepository.streamLoanedBookIds()) {
+            index.load(bookIds, loanedBookIds);
+        }
+        BookAvailabilityIndex.IdPage available = index.page(null, true, 0, 0);
+        BookAvailabilityIndex.IdPage loaned = index.page(null, false, 0, 0);
+        if (index.overflow()) {
+            log.warn("Ids de livros acima de Integer.MAX_VALUE: disponibilidade respondida pelo banco");
+            return;
+        }
+        log.debug("Indice de disponibilidade carregado: {} livros disponiveis, {} emprestados",
+                available.getTotal(), loaned.getTotal());
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/*INDICE INVERTIDO EM MEMORIA DE TITULO E AUTOR: TERMO -> LIVROS. CADA TERMO DA CONSULTA CUSTA UM NUMERO LIMITADO DE
+CONSULTAS AO MAPA: O EXATO, NO MAXIMO MAX_PREFIX_TERMS TERMOS POR PREFIXO (SO A PARTIR DE MIN_PREFIX_LENGTH LETRAS) E,
+PARA O ERRO DE DIGITACAO, AS VARIANTES COM UMA LETRA A MENOS (INDICE DE DELECOES: O TERMO E CADA UMA DELAS APONTAM PARA
+O TERMO ORIGINAL), SEM PERCORRER O VOCABULARIO. O QUE AINDA CRESCE COM O CATALOGO E O NUMERO DE LIVROS QUE CASAM, QUE E
+O TAMANHO DA RESPOSTA ANTES DO limit.
+CADA INSTANCIA TEM O SEU INDICE: AS ESCRITAS DAS OUTRAS SO CHEGAM AQUI NA RECARGA PERIODICA (BookSearchServiceImpl)*/
+@Component
+public class BookSearchIndex {
+
+    static final int TITLE_WEIGHT = 2;
+    static final int AUTHOR_WEIGHT = 1;
+    static final int EXACT_SCORE = 3;
+    static final int PREFIX_SCORE = 2;
+    static final int FUZZY_SCORE = 1;
+    static final int FUZZY_MIN_LENGTH = 4;
+    static final int MIN_PREFIX_LENGTH = 3;
+    static final int MAX_PREFIX_TERMS = 64;
+
+    private Terms terms = new Terms();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /*ALTERACOES CONFIRMADAS DURANTE UMA CARGA, REAPLICADAS SOBRE O NOVO INDICE (COMO NO BookAvailabilityIndex)*/
+    private List<Runnable> changedDuringLoad;
+    private final String instance = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong generation = new AtomicLong();
+
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+        Long id = book.getId();
+        Map<String, Integer> weights = weights(book);
+        write(() -> terms.put(id, weights));
+    }
+
+    public void remove(Long id) {
+        write(() -> terms.remove(id));
+    }
+
+    /*CARGA COMPLETA: source ENTREGA CADA LIVRO DO BANCO AO CONSUMIDOR RECEBIDO. O NOVO INDICE E MONTADO FORA DO LOCK E
+    TROCADO DE UMA VEZ, ENTAO LIVROS EXCLUIDOS EM OUTRA INSTANCIA SAEM; UMA CARGA POR VEZ*/
+    public synchronized void load(Consumer<Consumer<Book>> source) {
+        lock.writeLock().lock();
+        try {
+            changedDuringLoad = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Terms fresh = new Terms();
+        try {
+            source.accept(book -> fresh.put(book.getId(), weights(book)));
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                changedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            terms = fresh;
+            changedDuringLoad.forEach(Runnable::run);
+            changedDuringLoad = null;
+            generation.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*INSTANCIA (ALEATORIA A CADA INICIO) E NUMERO DA CARGA, PARA A ETag DA BUSCA*/
+    public String generation() {
+        return instance + "." + generation.get();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return terms.documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*TODOS OS TERMOS DA CONSULTA PRECISAM CASAR (EXATO, PREFIXO OU A UMA EDICAO DE DISTANCIA); O SCORE SOMA OS CASAMENTOS*/
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit < 1) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> scores = null;
+            for (String token : tokens) {
+                Map<Long, Integer> tokenScores = score(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+            return top(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<Long, Integer> score(String token) {
+        Map<Long, Integer> scores = new HashMap<>();
+        Map<Long, Integer> exact = terms.postings.get(token);
+        if (exact != null) {
+            exact.forEach((id, weight) -> scores.merge(id, EXACT_SCORE * weight, Math::max));
+        }
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            /*OS PRIMEIROS MAX_PREFIX_TERMS TERMOS EM ORDEM ALFABETICA: UMA CONSULTA CURTA NAO PERCORRE O VOCABULARIO*/
+            int expanded = 0;
+            for (Map.Entry<String, Map<Long, Integer>> entry : terms.postings.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+                if (++expanded > MAX_PREFIX_TERMS) {
+                    break;
+                }
+                entry.getValue().forEach((id, weight) -> scores.merge(id, PREFIX_SCORE * weight, Math::max));
+            }
+        }
+        if (token.length() >= FUZZY_MIN_LENGTH) {
+            for (String candidate : terms.fuzzyCandidates(token)) {
+                if (withinOneEdit(token, candidate)) {
+                    terms.postings.get(candidate).forEach((id, weight) -> scores.merge(id, FUZZY_SCORE * weight, Math::max));
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+            if (changedDuringLoad != null) {
+                changedDuringLoad.add(change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static Map<String, Integer> weights(Book book) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(book.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Math::max));
+        tokenize(book.getAuthor()).forEach(term -> weights.merge(term, AUTHOR_WEIGHT, Math::max));
+        return weights;
+    }
+
+    private static List<Long> top(Map<Long, Integer> scores, int limit) {
+        Comparator<Map.Entry<Long, Integer>> byRelevance = Map.Entry.<Long, Integer>comparingByValue()
+                .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed());
+        PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(limit + 1, byRelevance);
+        for (Map.Entry<Long, Integer> entry : scores.entrySet()) {
+            best.offer(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Long> ids = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ids.add(best.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    /*POSTINGS, DOCUMENTOS E O INDICE DE DELECOES PARA A BUSCA TOLERANTE A ERRO*/
+    private static final class Terms {
+
+        private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, Map<String, Integer>> documents = new HashMap<>();
+        /*TERMO OU TERMO SEM UMA LETRA -> TERMOS DO VOCABULARIO. DOIS TERMOS A UMA EDICAO DE DISTANCIA SEMPRE TEM UMA CHAVE EM
+        COMUM (INSERCAO, REMOCAO OU TROCA DE UMA LETRA), ENTAO BASTA CONSULTAR O TOKEN E AS SUAS DELECOES*/
+        private final Map<String, Set<String>> deletions = new HashMap<>();
+
+        void put(Long id, Map<String, Integer> weights) {
+            remove(id);
+            documents.put(id, weights);
+            weights.forEach((term, weight) -> postings.computeIfAbsent(term, key -> {
+                neighbourhood(key).forEach(variant -> deletions.computeIfAbsent(variant, v -> new HashSet<>()).add(key));
+                return new HashMap<>();
+            }).put(id, weight));
+        }
+
+        void remove(Long id) {
+            Map<String, Integer> weights = documents.remove(id);
+            if (weights == null) {
+                return;
+            }
+            for (String term : weights.keySet()) {
+                Map<Long, Integer> ids = postings.get(term);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(term);
+                        neighbourhood(term).forEach(variant -> {
+                            Set<String> variantTerms = deletions.get(variant);
+                            if (variantTerms != null && variantTerms.remove(term) && variantTerms.isEmpty()) {
+                                deletions.remove(variant);
+                            }
+                        });
+                    }
+                }
+            }
+        }
+
+        Set<String> fuzzyCandidates(String token) {
+            Set<String> candidates = new HashSet<>();
+            for (String variant : neighbourhood(token)) {
+                Set<String> variantTerms = deletions.get(variant);
+                if (variantTerms != null) {
+                    candidates.addAll(variantTerms);
+                }
+            }
+            return candidates;
+        }
+
+        /*O TERMO E AS VARIANTES COM UMA LETRA A MENOS; TERMOS CURTOS DEMAIS PARA A BUSCA TOLERANTE FICAM DE FORA*/
+        private static Set<String> neighbourhood(String term) {
+            if (term.length() < FUZZY_MIN_LENGTH - 1) {
+                return Collections.emptySet();
+            }
+            Set<String> variants = new HashSet<>();
+            variants.add(term);
+            for (int i = 0; i < term.length(); i++) {
+                variants.add(term.substring(0, i) + term.substring(i + 1));
+            }
+            return variants;
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return Collections.emptyList();
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split("[^\\p{Alnum}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    static boolean withinOneEdit(String a, String b) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) {
+            return false;
+        }
+        int i = 0;
+        int j = 0;
+        boolean edited = false;
+        while (i < la && j < lb) {
+            if (a.charAt(i) == b.charAt(j)) {
+                i++;
+                j++;
+                continue;
+            }
+            if (edited) {
+                return false;
+            }
+            edited = true;
+            if (la > lb) {
+                i++;
+            } else if (lb > la) {
+                j++;
+            } else {
+                i++;
+                j++;
+            }
+        }
+        return !edited || (i == la && j == lb);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.entity.Book;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/*LISTENER JPA DO Book: TODA ESCRITA (INCLUSIVE A IMPORTACAO EM LOTE) ATUALIZA O INDICE DE BUSCA. COMO NO INDICE DE
+DISPONIBILIDADE, A ALTERACAO SO E APLICADA DEPOIS DO COMMIT: UMA ESCRITA DESFEITA (CONFLITO DE VERSAO, ISBN REPETIDO)
+NAO DEIXA DOCUMENTO NO INDICE, E A BUSCA NAO ACHA UM LIVRO QUE AINDA NAO ESTA VISIVEL NO BANCO*/
+@Component
+public class BookSearchIndexListener {
+
+    private final ObjectProvider<BookSearchIndex> index;
+
+    public BookSearchIndexListener(ObjectProvider<BookSearchIndex> index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Book book) {
+        /*OS CAMPOS INDEXADOS COMO ESTAVAM NESTA ESCRITA; UMA ESCRITA POSTERIOR NA MESMA TRANSACAO REGISTRA OUTRA*/
+        Book indexed = Book.builder().id(book.getId()).title(book.getTitle()).author(book.getAuthor()).build();
+        afterCommit(() -> index.ifAvailable(searchIndex -> searchIndex.index(indexed)));
+    }
+
+    @PostRemove
+    public void onRemove(Book book) {
+        Long id = book.getId();
+        afterCommit(() -> index.ifAvailable(searchIndex -> searchIndex.remove(id)));
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+}
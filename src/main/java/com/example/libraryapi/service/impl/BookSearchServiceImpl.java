@@ -0,0 +1,76 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.service.BookSearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+@Service
+public class BookSearchServiceImpl implements BookSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchServiceImpl.class);
+    static final int REBUILD_PAGE_SIZE = 1000;
+
+    private final BookSearchIndex index;
+    private final BookRepository repository;
+
+    public BookSearchServiceImpl(BookSearchIndex index, BookRepository repository) {
+        this.index = index;
+        this.repository = repository;
+    }
+
+    @Override
+    public List<Book> search(String query, int limit) {
+        List<Long> ids = index.search(query, limit);
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Book> books = new HashMap<>();
+        repository.findAllById(ids).forEach(book -> books.put(book.getId(), book));
+
+        /*MANTEM A ORDEM DE RELEVANCIA DO INDICE E DESCARTA IDS QUE NAO EXISTEM MAIS NO BANCO*/
+        List<Book> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book book = books.get(id);
+            if (book != null) {
+                result.add(book);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String version() {
+        return index.generation();
+    }
+
+    /*CARGA DO INDICE PAGINANDO POR CHAVE, NO INICIO E DEPOIS PERIODICAMENTE. ENTRE AS CARGAS ELE E MANTIDO PELO
+    BookSearchIndexListener, QUE SO VE AS ESCRITAS DESTA INSTANCIA: AS DE OUTRAS INSTANCIAS (E AS EXCLUSOES) APARECEM AQUI
+    EM ATE UM INTERVALO*/
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${library.search.refresh-interval:PT5M}",
+            initialDelayString = "${library.search.refresh-interval:PT5M}")
+    public void rebuild() {
+        index.load(sink -> {
+            long lastId = 0L;
+            List<Book> page;
+            do {
+                page = repository.findAfter(null, null, null, lastId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+                page.forEach(sink);
+                if (!page.isEmpty()) {
+                    lastId = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == REBUILD_PAGE_SIZE);
+        });
+        log.debug("Indice de busca de livros carregado com {} livros", index.size());
+    }
+}
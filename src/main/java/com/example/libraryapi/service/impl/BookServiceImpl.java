@@ -1,19 +1,28 @@
 package com.example.libraryapi.service.impl;
 
+import com.example.libraryapi.api.dto.BookImportResultDTO;
 import com.example.libraryapi.exception.BusinessException;
 import com.example.libraryapi.model.entity.Book;
 import com.example.libraryapi.model.repositoy.BookRepository;
 import com.example.libraryapi.service.BookService;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.ExampleMatcher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 public class BookServiceImpl implements BookService {
+
+    static final int MULTI_GET_CHUNK_SIZE = 500;
+
     private BookRepository repository;
 
     public BookServiceImpl(BookRepository repository) {
@@ -22,13 +31,20 @@ public class BookServiceImpl implements BookService {
 
     @Override
     public Book save(Book book) {
-        if(repository.existsByIsbn(book.getIsbn())){
-            throw new BusinessException("Isbn ja cadastrado.");
+        /*SEM CONSULTA ANTES DO INSERT: O INDICE UNICO DE isbn REJEITA O SEGUNDO CADASTRO, MESMO ENTRE REQUISICOES CONCORRENTES*/
+        try {
+            return repository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (cause != null && cause.toLowerCase(Locale.ROOT).contains(Book.ISBN_CONSTRAINT)) {
+                throw new BusinessException("Isbn ja cadastrado.");
+            }
+            throw e;
         }
-        return repository.save(book);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getById(Long id) {
         return this.repository.findById(id);
     }
@@ -51,6 +67,7 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Book> find(Book filter, Pageable pageRequest) {
         Example<Book> example = Example.of(
                 filter, ExampleMatcher
@@ -62,9 +79,110 @@ public class BookServiceImpl implements BookService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<Book> findAfter(Book filter, Long afterId, int size) {
+        return repository.findAfter(filter.getTitle(), filter.getAuthor(), filter.getIsbn(),
+                afterId == null ? 0L : afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public Optional<Book> getBookByIsbn(String isbn) {
         return repository.findByIsbn(isbn);
     }
 
+    /*UMA CONSULTA IN POR LOTE DE 500 CHAVES DISTINTAS*/
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Book> getByIds(Collection<Long> ids) {
+        Map<Long, Book> books = new HashMap<>();
+        for (List<Long> chunk : chunks(ids)) {
+            repository.findAllById(chunk).forEach(book -> books.put(book.getId(), book));
+        }
+        return books;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Book> getByIsbns(Collection<String> isbns) {
+        Map<String, Book> books = new HashMap<>();
+        for (List<String> chunk : chunks(isbns)) {
+            repository.findByIsbnIn(chunk).forEach(book -> books.put(book.getIsbn(), book));
+        }
+        return books;
+    }
+
+    @Override
+    public List<BookImportResultDTO> saveAll(List<Book> books) {
+        /*UMA UNICA CONSULTA POR LOTE PARA DESCOBRIR OS ISBNS JA CADASTRADOS*/
+        Set<String> isbns = books.stream().map(Book::getIsbn).collect(Collectors.toSet());
+        Set<String> taken = new HashSet<>(repository.findExistingIsbns(isbns));
+
+        List<BookImportResultDTO> results = new ArrayList<>(books.size());
+        List<Book> newBooks = new ArrayList<>(books.size());
+        for (Book book : books) {
+            BookImportResultDTO result = BookImportResultDTO.builder().isbn(book.getIsbn()).build();
+            if (taken.add(book.getIsbn())) {
+                result.setStatus(BookImportResultDTO.Status.CREATED);
+                newBooks.add(book);
+            } else {
+                result.setStatus(BookImportResultDTO.Status.DUPLICATED);
+                result.setErrors(Collections.singletonList("Isbn ja cadastrado."));
+            }
+            results.add(result);
+        }
 
+        if (newBooks.isEmpty()) {
+            return results;
+        }
+        try {
+            repository.insertAll(newBooks);
+        } catch (DataIntegrityViolationException e) {
+            /*OUTRA IMPORTACAO (OU UM POST) CADASTROU UM DOS ISBNS ENTRE A CONSULTA E O INSERT: O LOTE FOI DESFEITO E
+            CADA LIVRO E GRAVADO SOZINHO, PARA QUE SO A LINHA EM CONFLITO FIQUE DE FORA*/
+            insertEach(newBooks, results);
+            return results;
+        }
+        for (int i = 0, saved = 0; i < results.size(); i++) {
+            if (results.get(i).getStatus() == BookImportResultDTO.Status.CREATED) {
+                results.get(i).setId(newBooks.get(saved++).getId());
+            }
+        }
+        return results;
+    }
+
+    private void insertEach(List<Book> newBooks, List<BookImportResultDTO> results) {
+        int next = 0;
+        for (BookImportResultDTO result : results) {
+            if (result.getStatus() != BookImportResultDTO.Status.CREATED) {
+                continue;
+            }
+            Book book = newBooks.get(next++);
+            /*O PERSIST DO LOTE DESFEITO JA ATRIBUIU id E version*/
+            book.setId(null);
+            book.setVersion(null);
+            try {
+                repository.insertAll(Collections.singletonList(book));
+                result.setId(book.getId());
+            } catch (DataIntegrityViolationException e) {
+                String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                if (cause != null && cause.toLowerCase(Locale.ROOT).contains(Book.ISBN_CONSTRAINT)) {
+                    result.setStatus(BookImportResultDTO.Status.DUPLICATED);
+                    result.setErrors(Collections.singletonList("Isbn ja cadastrado."));
+                } else {
+                    result.setStatus(BookImportResultDTO.Status.INVALID);
+                    result.setErrors(Collections.singletonList(cause));
+                }
+            }
+        }
+    }
+
+    private static <T> List<List<T>> chunks(Collection<T> keys) {
+        List<T> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MULTI_GET_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + MULTI_GET_CHUNK_SIZE, distinct.size())));
+        }
+        return chunks;
+    }
 }
@@ -0,0 +1,223 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.api.dto.BookImportResultDTO;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.BookService;
+import com.example.libraryapi.service.CatalogVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*CACHE DE LEITURA NA FRENTE DO CoalescingBookService (E DO BookServiceImpl): id -> livro E isbn -> id, INVALIDADO NAS ESCRITAS.
+TODA ESCRITA TAMBEM FAZ A CatalogVersion RELER O CATALOGO NA PROXIMA LISTAGEM.
+A BUSCA POR id CARREGA PELO Cache.get (ATOMICO COM A INVALIDACAO). AS BUSCAS POR isbn E EM LOTE GRAVAM COM put, GUARDADAS PELA
+GERACAO: TODA ESCRITA AVANCA A GERACAO ANTES DE INVALIDAR, E UMA LEITURA QUE COMECOU ANTES DELA DESFAZ O put, PARA QUE UMA
+LINHA VELHA LIDA ANTES DA ESCRITA NAO VOLTE PARA O CACHE DEPOIS DA INVALIDACAO*/
+@Service
+@Primary
+public class CachingBookService implements BookService {
+
+    static final String BOOKS_CACHE = "books";
+    static final String ISBNS_CACHE = "bookIsbns";
+
+    private final BookService delegate;
+    private final CatalogVersion catalogVersion;
+    private final Cache<Long, Book> booksById;
+    private final Cache<String, Long> idsByIsbn;
+    private final AtomicLong generation = new AtomicLong();
+
+    public CachingBookService(@Qualifier("coalescingBookService") BookService delegate,
+                              CatalogVersion catalogVersion,
+                              MeterRegistry meterRegistry,
+                              @Value("${library.cache.books.maximum-size:10000}") long maximumSize,
+                              @Value("${library.cache.books.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.delegate = delegate;
+        this.catalogVersion = catalogVersion;
+        this.booksById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.idsByIsbn = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, booksById, BOOKS_CACHE);
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByIsbn, ISBNS_CACHE);
+    }
+
+    @Override
+    public Book save(Book book) {
+        Book saved = delegate.save(book);
+        written();
+        idsByIsbn.invalidate(saved.getIsbn());
+        return saved;
+    }
+
+    @Override
+    public Optional<Book> getById(Long id) {
+        Book book = booksById.get(id, key -> delegate.getById(key).orElse(null));
+        return Optional.ofNullable(book).map(CachingBookService::copy);
+    }
+
+    @Override
+    public void delete(Book book) {
+        delegate.delete(book);
+        written();
+        evict(book);
+    }
+
+    @Override
+    public Book update(Book book) {
+        Book updated;
+        try {
+            updated = delegate.update(book);
+        } catch (OptimisticLockingFailureException e) {
+            /*A COPIA EM CACHE PODE SER A VERSAO VELHA: A PROXIMA LEITURA RECARREGA DO BANCO*/
+            generation.incrementAndGet();
+            evict(book);
+            throw e;
+        }
+        written();
+        evict(book);
+        evict(updated);
+        return updated;
+    }
+
+    @Override
+    public Page<Book> find(Book filter, Pageable pageRequest) {
+        return delegate.find(filter, pageRequest);
+    }
+
+    @Override
+    public List<Book> findAfter(Book filter, Long afterId, int size) {
+        return delegate.findAfter(filter, afterId, size);
+    }
+
+    @Override
+    public Optional<Book> getBookByIsbn(String isbn) {
+        Long id = idsByIsbn.getIfPresent(isbn);
+        if (id != null) {
+            Optional<Book> cached = getById(id);
+            if (cached.isPresent() && isbn.equals(cached.get().getIsbn())) {
+                return cached;
+            }
+            idsByIsbn.invalidate(isbn);
+        }
+        long readAt = generation.get();
+        Optional<Book> book = delegate.getBookByIsbn(isbn);
+        book.ifPresent(found -> cache(isbn, found, readAt));
+        return book.map(CachingBookService::copy);
+    }
+
+    /*SO OS IDS FORA DO CACHE VAO AO DELEGATE, TODOS DE UMA VEZ; IDS INEXISTENTES NAO SAO GUARDADOS*/
+    @Override
+    public Map<Long, Book> getByIds(Collection<Long> ids) {
+        Map<Long, Book> books = new HashMap<>();
+        booksById.getAllPresent(ids).forEach((id, book) -> books.put(id, copy(book)));
+        List<Long> missing = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (!books.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long readAt = generation.get();
+            delegate.getByIds(missing).forEach((id, book) -> {
+                cache(null, book, readAt);
+                books.put(id, copy(book));
+            });
+        }
+        return books;
+    }
+
+    /*ISBNS COM id EM CACHE SAO RESOLVIDOS PELO getByIds; OS DEMAIS EM UMA UNICA CHAMADA AO DELEGATE*/
+    @Override
+    public Map<String, Book> getByIsbns(Collection<String> isbns) {
+        Map<String, Long> cachedIds = idsByIsbn.getAllPresent(isbns);
+        Map<Long, Book> cached = getByIds(cachedIds.values());
+        Map<String, Book> books = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String isbn : new LinkedHashSet<>(isbns)) {
+            Book book = cached.get(cachedIds.get(isbn));
+            if (book != null && isbn.equals(book.getIsbn())) {
+                books.put(isbn, book);
+            } else {
+                if (cachedIds.containsKey(isbn)) {
+                    idsByIsbn.invalidate(isbn);
+                }
+                missing.add(isbn);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long readAt = generation.get();
+            delegate.getByIsbns(missing).forEach((isbn, book) -> {
+                cache(isbn, book, readAt);
+                books.put(isbn, copy(book));
+            });
+        }
+        return books;
+    }
+
+    @Override
+    public List<BookImportResultDTO> saveAll(List<Book> books) {
+        List<BookImportResultDTO> results = delegate.saveAll(books);
+        written();
+        books.forEach(book -> idsByIsbn.invalidate(book.getIsbn()));
+        return results;
+    }
+
+    /*GRAVA O LIVRO LIDO NA GERACAO readAt; SE UMA ESCRITA AVANCOU A GERACAO NO MEIO TEMPO, A INVALIDACAO DELA PODE TER
+    ACONTECIDO ANTES DESTE put, ENTAO O put E DESFEITO (NO PIOR CASO A PROXIMA LEITURA VAI AO BANCO)*/
+    private void cache(String isbn, Book book, long readAt) {
+        booksById.put(book.getId(), copy(book));
+        if (isbn != null) {
+            idsByIsbn.put(isbn, book.getId());
+        }
+        if (generation.get() != readAt) {
+            booksById.invalidate(book.getId());
+            if (isbn != null) {
+                idsByIsbn.invalidate(isbn);
+            }
+        }
+    }
+
+    private void written() {
+        catalogVersion.increment();
+        generation.incrementAndGet();
+    }
+
+    private void evict(Book book) {
+        if (book == null) {
+            return;
+        }
+        if (book.getId() != null) {
+            Book cached = booksById.getIfPresent(book.getId());
+            if (cached != null && cached.getIsbn() != null) {
+                idsByIsbn.invalidate(cached.getIsbn());
+            }
+            booksById.invalidate(book.getId());
+        }
+        if (book.getIsbn() != null) {
+            idsByIsbn.invalidate(book.getIsbn());
+        }
+    }
+
+    /*O CONTROLLER ALTERA O LIVRO RECEBIDO ANTES DO update; A INSTANCIA DO CACHE NAO PODE SER COMPARTILHADA*/
+    private static Book copy(Book book) {
+        return book.toBuilder().build();
+    }
+}
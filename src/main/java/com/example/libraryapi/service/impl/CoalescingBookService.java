@@ -0,0 +1,124 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.api.dto.BookImportResultDTO;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*LEITURAS IDENTICAS E CONCORRENTES (getById, getBookByIsbn E find COM O MESMO FILTRO E PAGINA) FAZEM UMA UNICA IDA AO
+BANCO. FICA ENTRE O CachingBookService E O BookServiceImpl: SO CHEGAM AQUI OS MISSES DO CACHE E AS LISTAGENS.
+A GERACAO NA CHAVE E AVANCADA A CADA ESCRITA, ENTAO UMA LEITURA INICIADA DEPOIS DE UMA ESCRITA NUNCA PEGA CARONA EM UMA
+CONSULTA QUE COMECOU ANTES DELA. AS INSTANCIAS SAO COMPARTILHADAS ENTRE QUEM ESPERA: O CachingBookService JA DEVOLVE
+COPIAS NAS BUSCAS POR id E isbn, E AS LISTAGENS SO SAO LIDAS PELO CONTROLLER*/
+@Service
+public class CoalescingBookService implements BookService {
+
+    private final BookService delegate;
+    private final boolean enabled;
+    private final AtomicLong generation = new AtomicLong();
+    private final SingleFlight<List<Object>, Optional<Book>> byId;
+    private final SingleFlight<List<Object>, Optional<Book>> byIsbn;
+    private final SingleFlight<List<Object>, Page<Book>> finds;
+
+    public CoalescingBookService(@Qualifier("bookServiceImpl") BookService delegate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${library.coalescing.enabled:true}") boolean enabled) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.byId = new SingleFlight<>("book.id", meterRegistry);
+        this.byIsbn = new SingleFlight<>("book.isbn", meterRegistry);
+        this.finds = new SingleFlight<>("book.find", meterRegistry);
+    }
+
+    @Override
+    public Optional<Book> getById(Long id) {
+        return coalesce(byId, () -> delegate.getById(id), id);
+    }
+
+    @Override
+    public Optional<Book> getBookByIsbn(String isbn) {
+        return coalesce(byIsbn, () -> delegate.getBookByIsbn(isbn), isbn);
+    }
+
+    /*A CHAVE TEM TODOS OS CAMPOS QUE O Example DO BookServiceImpl.find COMPARA (OS NULOS SAO IGNORADOS LA E AQUI)*/
+    @Override
+    public Page<Book> find(Book filter, Pageable pageRequest) {
+        return coalesce(finds, () -> delegate.find(filter, pageRequest),
+                filter.getId(), filter.getTitle(), filter.getAuthor(), filter.getIsbn(),
+                filter.getVersion(), filter.getUpdatedAt(), pageRequest);
+    }
+
+    /*LISTAS DE CHAVES RARAMENTE SE REPETEM EXATAMENTE; OS LIVROS JA VEM DO CACHE QUANDO POSSIVEL*/
+    @Override
+    public Map<Long, Book> getByIds(Collection<Long> ids) {
+        return delegate.getByIds(ids);
+    }
+
+    @Override
+    public Map<String, Book> getByIsbns(Collection<String> isbns) {
+        return delegate.getByIsbns(isbns);
+    }
+
+    @Override
+    public List<Book> findAfter(Book filter, Long afterId, int size) {
+        return delegate.findAfter(filter, afterId, size);
+    }
+
+    @Override
+    public Book save(Book book) {
+        try {
+            return delegate.save(book);
+        } finally {
+            generation.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void delete(Book book) {
+        try {
+            delegate.delete(book);
+        } finally {
+            generation.incrementAndGet();
+        }
+    }
+
+    @Override
+    public Book update(Book book) {
+        try {
+            return delegate.update(book);
+        } finally {
+            generation.incrementAndGet();
+        }
+    }
+
+    @Override
+    public List<BookImportResultDTO> saveAll(List<Book> books) {
+        try {
+            return delegate.saveAll(books);
+        } finally {
+            generation.incrementAndGet();
+        }
+    }
+
+    private <V> V coalesce(SingleFlight<List<Object>, V> flight, Supplier<V> loader, Object... key) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Object[] versioned = Arrays.copyOf(key, key.length + 1);
+        versioned[key.length] = generation.get();
+        return flight.execute(Arrays.asList(versioned), loader);
+    }
+}
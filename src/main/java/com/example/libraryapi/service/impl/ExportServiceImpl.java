@@ -0,0 +1,185 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.config.ReplicaRead;
+import com.example.libraryapi.service.ExportFormat;
+import com.example.libraryapi.service.ExportService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/*EXPORTACAO COMPLETA DAS TABELAS: UM UNICO SELECT ORDENADO PELA PK, LIDO EM CURSOR (fetch size) E ESCRITO LINHA A LINHA.
+NADA E ACUMULADO EM MEMORIA E NENHUMA ENTIDADE PASSA PELO CONTEXTO DE PERSISTENCIA*/
+@Service
+public class ExportServiceImpl implements ExportService {
+
+    static final String BOOKS = "select id, isbn, title, author from book order by id";
+    static final String LOANS = "select l.id, l.id_book as book_id, b.isbn, l.customer, l.loan_date, l.returned "
+            + "from loan l join book b on b.id = l.id_book order by l.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public ExportServiceImpl(DataSource dataSource, @Value("${library.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public void exportBooks(ExportFormat format, OutputStream out) throws IOException {
+        export(BOOKS, format, out);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public void exportLoans(ExportFormat format, OutputStream out) throws IOException {
+        export(LOANS, format, out);
+    }
+
+    /*ResultSetExtractor: O CABECALHO SAI DOS METADADOS MESMO SEM NENHUMA LINHA (TABELA VAZIA = SO O CABECALHO NO CSV)*/
+    private void export(String sql, ExportFormat format, OutputStream out) throws IOException {
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        try {
+            jdbcTemplate.query(sql, (ResultSetExtractor<Void>) rs -> {
+                try {
+                    writer.start(rs.getMetaData());
+                    while (rs.next()) {
+                        writer.write(rs);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return null;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    private interface RowWriter {
+
+        void start(ResultSetMetaData metaData) throws IOException, SQLException;
+
+        void write(ResultSet rs) throws IOException, SQLException;
+
+        void finish() throws IOException;
+    }
+
+    /*RFC 4180: CABECALHO COM OS NOMES DAS COLUNAS, ASPAS SO QUANDO NECESSARIO, NULL COMO CAMPO VAZIO*/
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer out;
+        private int columns;
+
+        CsvRowWriter(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws IOException, SQLException {
+            columns = metaData.getColumnCount();
+            for (int i = 1; i <= columns; i++) {
+                field(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT));
+                out.write(i == columns ? '\n' : ',');
+            }
+        }
+
+        @Override
+        public void write(ResultSet rs) throws IOException, SQLException {
+            for (int i = 1; i <= columns; i++) {
+                Object value = rs.getObject(i);
+                if (value != null) {
+                    field(value.toString());
+                }
+                out.write(i == columns ? '\n' : ',');
+            }
+        }
+
+        private void field(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    /*UM OBJETO JSON POR LINHA; NOMES DAS COLUNAS EM snake_case, DATAS ISO-8601*/
+    private class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+        private SerializedString[] names;
+        private boolean empty = true;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(new SerializedString("\n"));
+        }
+
+        @Override
+        public void start(ResultSetMetaData metaData) throws SQLException {
+            names = new SerializedString[metaData.getColumnCount()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = new SerializedString(metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT));
+            }
+        }
+
+        @Override
+        public void write(ResultSet rs) throws IOException, SQLException {
+            empty = false;
+            generator.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                Object value = rs.getObject(i + 1);
+                generator.writeFieldName(names[i]);
+                if (value == null) {
+                    generator.writeNull();
+                } else if (value instanceof Long || value instanceof Integer) {
+                    generator.writeNumber(((Number) value).longValue());
+                } else if (value instanceof Boolean) {
+                    generator.writeBoolean((Boolean) value);
+                } else {
+                    generator.writeString(value.toString());
+                }
+            }
+            generator.writeEndObject();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!empty) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+    }
+}
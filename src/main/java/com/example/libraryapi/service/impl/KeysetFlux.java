@@ -0,0 +1,31 @@
+package com.example.libraryapi.service.impl;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*LISTA COMPLETA COMO Flux, LIDA EM LOTES PELA PAGINACAO POR CHAVE (findAfter). A LEITURA ACOMPANHA A DEMANDA DO ASSINANTE:
+NO MAXIMO UM LOTE A FRENTE DO QUE JA FOI PEDIDO, E UM CLIENTE LENTO NAO SEGURA CONEXAO NEM THREAD ENTRE UM LOTE E OUTRO*/
+final class KeysetFlux {
+
+    private KeysetFlux() {
+    }
+
+    static <T> Flux<T> of(BiFunction<Long, Integer, List<T>> findAfter, Function<T, Long> id, int batchSize,
+                          Scheduler scheduler) {
+        return batch(findAfter, 0L, batchSize, scheduler)
+                .expand(rows -> rows.size() < batchSize
+                        ? Mono.empty()
+                        : batch(findAfter, id.apply(rows.get(rows.size() - 1)), batchSize, scheduler))
+                .concatMapIterable(rows -> rows, 1);
+    }
+
+    private static <T> Mono<List<T>> batch(BiFunction<Long, Integer, List<T>> findAfter, Long afterId, int batchSize,
+                                           Scheduler scheduler) {
+        return Mono.fromCallable(() -> findAfter.apply(afterId, batchSize)).subscribeOn(scheduler);
+    }
+}
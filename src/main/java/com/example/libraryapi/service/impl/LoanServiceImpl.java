@@ -1,48 +1,176 @@
 package com.example.libraryapi.service.impl;
 
+import com.example.libraryapi.config.ReplicaRead;
 import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.api.dto.LoanReturnResultDTO;
 import com.example.libraryapi.exception.BusinessException;
-import com.example.libraryapi.model.entity.Book;
 import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
 import com.example.libraryapi.model.repositoy.LoanRepository;
 import com.example.libraryapi.service.LoanService;
+import com.example.libraryapi.service.LoanVersion;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Service
 public class LoanServiceImpl implements LoanService {
 
+    /*TAMANHO DAS LISTAS IN: CADA LOTE E UMA CONSULTA DE ESTADO POR TIPO DE CHAVE E UM UNICO UPDATE*/
+    static final int RETURN_CHUNK_SIZE = 500;
+
     private LoanRepository repository;
-    public LoanServiceImpl(LoanRepository repository) {
+    private BookAvailabilityIndex availabilityIndex;
+    private LoanVersion loanVersion;
+    public LoanServiceImpl(LoanRepository repository, BookAvailabilityIndex availabilityIndex, LoanVersion loanVersion) {
         this.repository = repository;
+        this.availabilityIndex = availabilityIndex;
+        this.loanVersion = loanVersion;
     }
 
     @Override
     public Loan save(Loan loan) {
-        if(repository.existsByBookAndNotReturned(loan.getBook())){
-            throw new BusinessException("Book already loaned");
+        /*SEM CONSULTA ANTES DO INSERT: O INDICE UNICO DE active_book_id REJEITA O SEGUNDO EMPRESTIMO ATIVO*/
+        try {
+            Loan saved = repository.saveAndFlush(loan);
+            loanVersion.increment();
+            return saved;
+        } catch (DataIntegrityViolationException e) {
+            String cause = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (cause != null && cause.toLowerCase(Locale.ROOT).contains(Loan.ACTIVE_BOOK_CONSTRAINT)) {
+                throw new BusinessException("Book already loaned");
+            }
+            throw e;
         }
-        return repository.save(loan);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Optional<Loan> getById(Long id) {
         return repository.findById(id);
     }
 
     @Override
     public Loan update(Loan loan) {
-        return repository.save(loan);
+        Loan updated = repository.save(loan);
+        loanVersion.increment();
+        return updated;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public Page<LoanSummary> find(LoanFilterDTO filterDTO, Pageable pageable) {
+        return repository.searchSummaries(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
     }
 
     @Override
-    public Page<Loan> find(LoanFilterDTO filterDTO, Pageable pageable) {
-        return repository.findByBookIsbnOrCustomer(filterDTO.getIsbn(), filterDTO.getCustomer(), pageable);
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public List<LoanSummary> findAfter(LoanFilterDTO filterDTO, Long afterId, int size) {
+        return repository.searchSummariesAfter(filterDTO.getIsbn(), filterDTO.getCustomer(),
+                afterId == null ? 0L : afterId, PageRequest.of(0, size));
     }
 
     @Override
-    public Page<Loan> getLoansByBook(Book book, Pageable pageable) {
-        return repository.findByBook(book, pageable);
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public Page<LoanSummary> getLoansByBook(Long bookId, Pageable pageable) {
+        return repository.findSummariesByBookId(bookId, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @ReplicaRead
+    public List<LoanSummary> getLoansByBookAfter(Long bookId, Long afterId, int size) {
+        return repository.findSummariesByBookIdAfter(bookId, afterId == null ? 0L : afterId, PageRequest.of(0, size));
+    }
+
+    @Override
+    @Transactional
+    public List<LoanReturnResultDTO> returnAll(List<Long> ids, List<String> isbns) {
+        List<LoanReturnResultDTO> results = new ArrayList<>();
+        Set<Long> returned = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            Map<Long, LoanSummary> loans = repository.findSummariesByIdIn(new HashSet<>(chunk)).stream()
+                    .collect(Collectors.toMap(LoanSummary::getId, Function.identity()));
+            results.addAll(returnChunk(chunk, loans, returned, LoanReturnResultDTO::setId));
+        }
+        for (List<String> chunk : chunks(isbns)) {
+            Map<String, LoanSummary> loans = repository.findActiveSummariesByIsbnIn(new HashSet<>(chunk)).stream()
+                    .collect(Collectors.toMap(LoanSummary::getIsbn, Function.identity()));
+            results.addAll(returnChunk(chunk, loans, returned, LoanReturnResultDTO::setIsbn));
+        }
+        if (!returned.isEmpty()) {
+            loanVersion.increment();
+        }
+        return results;
+    }
+
+    /*returned ACUMULA OS EMPRESTIMOS JA DEVOLVIDOS NESTA CHAMADA: UMA CHAVE REPETIDA (OU ID E ISBN DO MESMO EMPRESTIMO)
+    RESULTA EM ALREADY_RETURNED, NAO EM UMA SEGUNDA DEVOLUCAO*/
+    private <K> List<LoanReturnResultDTO> returnChunk(List<K> chunk, Map<K, LoanSummary> loans, Set<Long> returned,
+                                                      BiConsumer<LoanReturnResultDTO, K> requestedKey) {
+        List<LoanReturnResultDTO> results = new ArrayList<>(chunk.size());
+        List<Long> active = new ArrayList<>();
+        List<Long> books = new ArrayList<>();
+        for (K key : chunk) {
+            LoanSummary loan = loans.get(key);
+            LoanReturnResultDTO result = new LoanReturnResultDTO();
+            if (loan == null) {
+                result.setStatus(LoanReturnResultDTO.Status.NOT_FOUND);
+            } else {
+                result.setId(loan.getId());
+                result.setIsbn(loan.getIsbn());
+                if (Boolean.TRUE.equals(loan.getReturned()) || !returned.add(loan.getId())) {
+                    result.setStatus(LoanReturnResultDTO.Status.ALREADY_RETURNED);
+                } else {
+                    result.setStatus(LoanReturnResultDTO.Status.RETURNED);
+                    active.add(loan.getId());
+                    books.add(loan.getBookId());
+                }
+            }
+            requestedKey.accept(result, key);
+            results.add(result);
+        }
+        if (!active.isEmpty()) {
+            /*MENOS LINHAS QUE O ESPERADO: OUTRA REQUISICAO DEVOLVEU PARTE DO LOTE ENTRE A LEITURA E O UPDATE. A TRANSACAO
+            E DESFEITA (409) EM VEZ DE INFORMAR RETURNED PARA O QUE NAO FOI DEVOLVIDO AQUI*/
+            int updated = repository.markReturned(active);
+            if (updated != active.size()) {
+                throw new OptimisticLockingFailureException(
+                        "Expected to return " + active.size() + " loans but returned " + updated);
+            }
+            /*O UPDATE EM LOTE NAO DISPARA O BookAvailabilityIndexListener*/
+            availabilityIndex.returned(books);
+        }
+        return results;
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        if (values == null) {
+            return List.of();
+        }
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += RETURN_CHUNK_SIZE) {
+            chunks.add(values.subList(from, Math.min(from + RETURN_CHUNK_SIZE, values.size())));
+        }
+        return chunks;
     }
 }
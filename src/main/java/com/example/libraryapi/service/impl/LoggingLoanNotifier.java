@@ -0,0 +1,24 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.service.LoanNotifier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*NOTIFICADOR PADRAO: APENAS REGISTRA NO LOG. UM BEAN @Primary DE LoanNotifier SUBSTITUI ESTE*/
+@Component
+public class LoggingLoanNotifier implements LoanNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(LoggingLoanNotifier.class);
+
+    @Override
+    public void notifyOverdue(List<LoanSummary> loans) {
+        for (LoanSummary loan : loans) {
+            log.info("Emprestimo {} atrasado: livro {} com {} desde {}",
+                    loan.getId(), loan.getIsbn(), loan.getCustomer(), loan.getLoanDate());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import com.example.libraryapi.service.LoanNotifier;
+import com.example.libraryapi.service.OverdueLoanRun;
+import com.example.libraryapi.service.OverdueLoanService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/*JOB NOTURNO DE ATRASOS: LE OS EMPRESTIMOS POR CURSOR (STREAM), MONTA LOTES LIMITADOS E DESPACHA EM PARALELO.
+NO MAXIMO max-in-flight LOTES FICAM EM MEMORIA; A LEITURA ESPERA QUANDO O NOTIFICADOR NAO ACOMPANHA*/
+@Service
+public class OverdueLoanServiceImpl implements OverdueLoanService, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanServiceImpl.class);
+
+    private final LoanRepository repository;
+    private final LoanNotifier notifier;
+    private final int loanDays;
+    private final int batchSize;
+    private final int maxInFlight;
+    private final ExecutorService executor;
+    private final Timer runTimer;
+    private final Counter loansCounter;
+    private final Counter failuresCounter;
+
+    public OverdueLoanServiceImpl(LoanRepository repository,
+                                  LoanNotifier notifier,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${library.overdue.loan-days:4}") int loanDays,
+                                  @Value("${library.overdue.batch-size:500}") int batchSize,
+                                  @Value("${library.overdue.notifier-threads:4}") int notifierThreads,
+                                  @Value("${library.overdue.max-in-flight:8}") int maxInFlight) {
+        this.repository = repository;
+        this.notifier = notifier;
+        this.loanDays = loanDays;
+        this.batchSize = batchSize;
+        this.maxInFlight = maxInFlight;
+        this.executor = Executors.newFixedThreadPool(notifierThreads);
+        this.runTimer = meterRegistry.timer("library.overdue.run");
+        this.loansCounter = meterRegistry.counter("library.overdue.loans");
+        this.failuresCounter = meterRegistry.counter("library.overdue.failures");
+    }
+
+    @Override
+    @Scheduled(cron = "${library.overdue.cron:0 0 2 * * *}")
+    @Transactional(readOnly = true)
+    public OverdueLoanRun detectOverdueLoans() {
+        return detectOverdueLoans(LocalDate.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OverdueLoanRun detectOverdueLoans(LocalDate today) {
+        LocalDate dueBefore = today.minusDays(loanDays);
+        long start = System.nanoTime();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicLong notified = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long loans = 0;
+        long batches = 0;
+
+        try (Stream<LoanSummary> stream = repository.streamOverdue(dueBefore)) {
+            Iterator<LoanSummary> rows = stream.iterator();
+            List<LoanSummary> batch = new ArrayList<>(batchSize);
+            while (rows.hasNext()) {
+                batch.add(rows.next());
+                loans++;
+                if (batch.size() == batchSize) {
+                    dispatch(batch, inFlight, notified, failed);
+                    batches++;
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                dispatch(batch, inFlight, notified, failed);
+                batches++;
+            }
+        } finally {
+            /*ESPERA OS LOTES AINDA EM ANDAMENTO*/
+            inFlight.acquireUninterruptibly(maxInFlight);
+        }
+
+        long elapsed = System.nanoTime() - start;
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        loansCounter.increment(loans);
+        failuresCounter.increment(failed.get());
+        OverdueLoanRun run = OverdueLoanRun.builder()
+                .dueBefore(dueBefore)
+                .loans(loans)
+                .batches(batches)
+                .notified(notified.get())
+                .failed(failed.get())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(elapsed))
+                .loansPerSecond(elapsed == 0 ? 0 : loans / (elapsed / 1e9))
+                .build();
+        log.info("Deteccao de atrasos concluida: {}", run);
+        return run;
+    }
+
+    private void dispatch(List<LoanSummary> batch, Semaphore inFlight, AtomicLong notified, AtomicLong failed) {
+        inFlight.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    notifier.notifyOverdue(batch);
+                    notified.addAndGet(batch.size());
+                } catch (RuntimeException e) {
+                    failed.addAndGet(batch.size());
+                    log.error("Falha ao notificar lote de {} emprestimos atrasados", batch.size(), e);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.BookService;
+import com.example.libraryapi.service.ReactiveBookService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/*VERSAO REATIVA DAS LEITURAS DE LIVROS SOBRE O BookService (COM O CACHE DE LIVROS NA FRENTE): AS CONSULTAS RODAM NO
+jdbcScheduler (ReactiveConfig) E NAO NA THREAD QUE ASSINA*/
+@Service
+public class ReactiveBookServiceImpl implements ReactiveBookService {
+
+    private final BookService service;
+    private final Scheduler scheduler;
+    private final int batchSize;
+
+    public ReactiveBookServiceImpl(BookService service, Scheduler jdbcScheduler,
+                                   @Value("${library.reactive.stream-batch-size:200}") int batchSize) {
+        this.service = service;
+        this.scheduler = jdbcScheduler;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Mono<Book> getById(Long id) {
+        return Mono.fromCallable(() -> service.getById(id))
+                .subscribeOn(scheduler)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    @Override
+    public Flux<Book> find(Book filter) {
+        return KeysetFlux.of((afterId, size) -> service.findAfter(filter, afterId, size), Book::getId, batchSize, scheduler);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.libraryapi.service.impl;
+
+import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.service.LoanService;
+import com.example.libraryapi.service.ReactiveLoanService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Scheduler;
+
+/*VERSAO REATIVA DAS LISTAGENS DE EMPRESTIMOS: UMA CONSULTA DE PROJECAO POR LOTE, SEM COUNT, NO jdbcScheduler*/
+@Service
+public class ReactiveLoanServiceImpl implements ReactiveLoanService {
+
+    private final LoanService service;
+    private final Scheduler scheduler;
+    private final int batchSize;
+
+    public ReactiveLoanServiceImpl(LoanService service, Scheduler jdbcScheduler,
+                                   @Value("${library.reactive.stream-batch-size:200}") int batchSize) {
+        this.service = service;
+        this.scheduler = jdbcScheduler;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public Flux<LoanSummary> find(LoanFilterDTO filterDTO) {
+        return KeysetFlux.of((afterId, size) -> service.findAfter(filterDTO, afterId, size),
+                LoanSummary::getId, batchSize, scheduler);
+    }
+
+    @Override
+    public Flux<LoanSummary> getLoansByBook(Long bookId) {
+        return KeysetFlux.of((afterId, size) -> service.getLoansByBookAfter(bookId, afterId, size),
+                LoanSummary::getId, batchSize, scheduler);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.libraryapi.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/*CHAMADAS CONCORRENTES COM A MESMA CHAVE COMPARTILHAM UMA UNICA EXECUCAO: A PRIMEIRA RODA O loader NA PROPRIA THREAD
+E AS DEMAIS ESPERAM O MESMO FUTURE. NADA FICA GUARDADO DEPOIS QUE A EXECUCAO TERMINA (NAO E CACHE).
+METRICA library.singleflight.calls{name, outcome=executed|collapsed}*/
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter collapsed;
+
+    public SingleFlight(String name, MeterRegistry registry) {
+        this.executed = Counter.builder("library.singleflight.calls")
+                .tag("name", name)
+                .tag("outcome", "executed")
+                .register(registry);
+        this.collapsed = Counter.builder("library.singleflight.calls")
+                .tag("name", name)
+                .tag("outcome", "collapsed")
+                .register(registry);
+        Gauge.builder("library.singleflight.in.flight", inFlight, ConcurrentMap::size)
+                .tag("name", name)
+                .register(registry);
+    }
+
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+        if (running != null) {
+            collapsed.increment();
+            return join(running);
+        }
+        executed.increment();
+        try {
+            V value = loader.get();
+            call.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /*QUEM ESPERA RECEBE A MESMA EXCECAO DE QUEM EXECUTOU, SEM O CompletionException EM VOLTA*/
+    private static <V> V join(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+-- Livros: id por sequence (allocationSize 50 no Book) para permitir batch de inserts
+create sequence book_seq start with 1 increment by 50;
+
+create table book (
+    id     bigint not null,
+    title  varchar(255),
+    author varchar(255),
+    isbn   varchar(255),
+    constraint pk_book primary key (id),
+    -- existsByIsbn, findByIsbn e findExistingIsbns
+    constraint uk_book_isbn unique (isbn)
+);
+
+create table loan (
+    id             bigint generated by default as identity,
+    customer       varchar(255),
+    id_book        bigint,
+    loan_date      date,
+    returned       boolean,
+    -- id do livro enquanto o emprestimo esta ativo, null depois da devolucao:
+    -- o indice unico aceita varios null e faz o papel de um indice parcial de emprestimos ativos
+    active_book_id bigint,
+    constraint pk_loan primary key (id),
+    constraint fk_loan_book foreign key (id_book) references book (id),
+    constraint uk_loan_active_book unique (active_book_id)
+);
+
+-- existsByBookAndNotReturned e emprestimos por livro
+create index idx_loan_book_returned on loan (id_book, returned);
+
+-- filtro por cliente em findByBookIsbnOrCustomer / searchSummaries
+create index idx_loan_customer on loan (customer);
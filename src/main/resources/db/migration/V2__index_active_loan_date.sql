@@ -0,0 +1,2 @@
+-- job de atrasos: emprestimos ativos (active_book_id not null) por data do emprestimo
+create index idx_loan_date_active on loan (loan_date, active_book_id);
@@ -0,0 +1,3 @@
+-- historico de emprestimos por livro (GET /api/books/{id}/loans): filtra por id_book, ordena/pagina por id
+-- e le as colunas da projecao direto do indice
+create index idx_loan_book_history on loan (id_book, id, loan_date, returned, customer);
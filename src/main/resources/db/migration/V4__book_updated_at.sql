@@ -0,0 +1,2 @@
+-- ETag / Last-Modified do livro (GET /api/books/{id})
+alter table book add column updated_at timestamp(6) default current_timestamp(6) not null;
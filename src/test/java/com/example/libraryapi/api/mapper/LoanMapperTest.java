@@ -0,0 +1,45 @@
+package com.example.libraryapi.api.mapper;
+
+import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.api.dto.LoanDTO;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoanMapperTest {
+
+    @Test
+    @DisplayName("Deve mapear um emprestimo com o seu livro para o DTO")
+    public void loanToDTOTest(){
+        //CENARIO
+        Book book = Book.builder().id(2L).title("As Aventuras").author("Fulano").isbn("123").build();
+        Loan loan = Loan.builder().id(1L).customer("Ciclano").book(book).loanDate(LocalDate.now()).build();
+
+        //EXECUCAO
+        LoanDTO dto = LoanMapper.toDTO(loan);
+
+        //VERIFICACAO
+        assertThat(dto.getId()).isEqualTo(1L);
+        assertThat(dto.getCustomer()).isEqualTo("Ciclano");
+        assertThat(dto.getIsbn()).isEqualTo("123");
+        assertThat(dto.getBook()).isEqualTo(new BookDTO(2L, "As Aventuras", "Fulano", "123"));
+    }
+
+    @Test
+    @DisplayName("Deve mapear o DTO de livro para a entidade")
+    public void bookToEntityTest(){
+        BookDTO dto = BookDTO.builder().title("As Aventuras").author("Fulano").isbn("123").build();
+
+        Book book = BookMapper.toEntity(dto);
+
+        assertThat(book.getId()).isNull();
+        assertThat(book.getTitle()).isEqualTo("As Aventuras");
+        assertThat(book.getAuthor()).isEqualTo("Fulano");
+        assertThat(book.getIsbn()).isEqualTo("123");
+    }
+}
@@ -1,11 +1,20 @@
 package com.example.libraryapi.api.resource;
 
 import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.api.dto.BookImportResultDTO;
 import com.example.libraryapi.exception.BusinessException;
 import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.service.BookAvailabilityService;
+import com.example.libraryapi.service.BookSearchService;
 import com.example.libraryapi.service.BookService;
+import com.example.libraryapi.service.CatalogVersion;
+import com.example.libraryapi.service.LoanService;
+import com.example.libraryapi.service.ReactiveBookService;
+import com.example.libraryapi.service.ReactiveLoanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,18 +27,34 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -45,6 +70,24 @@ public class BookControllerTest {
     MockMvc mvc; /*OBJETO VAI MOKAR AS REQUISICOES SIMULANDO UMA REQUISACAO PARA A API*/
     @MockBean
     BookService service;
+    @MockBean
+    LoanService loanService;
+    @MockBean
+    BookSearchService searchService;
+    @MockBean
+    ReactiveBookService reactiveService;
+    @MockBean
+    BookAvailabilityService availabilityService;
+    @MockBean
+    ReactiveLoanService reactiveLoanService;
+    @MockBean
+    CatalogVersion catalogVersion;
+
+    @BeforeEach
+    public void setUp(){
+        BDDMockito.given(catalogVersion.etag()).willReturn("10-1");
+        BDDMockito.given(catalogVersion.lastModified()).willReturn(Instant.parse("2022-09-20T10:15:30Z"));
+    }
     @Test/*ANNOTATION PARA DEFINIR UM TESTE*/
     @DisplayName("deve criar um livro com sucesso.")/* ANNOTATION DO JUNIT5 QUE CRIA UMA DEFINICAO PARA OS TESTE*/
     public void createBookTest()throws Exception{
@@ -242,6 +285,57 @@ public class BookControllerTest {
                 .andExpect(status().isNotFound());
     }
     @Test
+    @DisplayName("Deve atualizar parcialmente apenas os campos enviados")
+    public void patchBookTest() throws Exception{
+        //CENARIO
+        Book book = Book.builder().id(1L).author("Artur").title("As Aventuras").isbn("001").version(3L).build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(service.update(Mockito.any(Book.class)))
+                .willAnswer(invocation -> invocation.getArgument(0, Book.class).toBuilder().version(4L).build());
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+                        .header(HttpHeaders.IF_MATCH, "\"1-3\"")
+                        .content("{\"title\":\"Novo Titulo\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-4\""))
+                .andExpect(jsonPath("title").value("Novo Titulo"))
+                .andExpect(jsonPath("author").value("Artur"));
+    }
+    @Test
+    @DisplayName("Deve retornar 412 quando o If-Match nao for a versao atual do livro")
+    public void staleIfMatchUpdateTest() throws Exception{
+        //CENARIO
+        Book book = Book.builder().id(1L).author("Artur").title("As Aventuras").isbn("001").version(4L).build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.put(BOOK_API.concat("/1"))
+                        .header(HttpHeaders.IF_MATCH, "\"1-3\"")
+                        .content(new ObjectMapper().writeValueAsString(createNewBook()))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("errors[0]").value("Book was modified by another request"));
+        Mockito.verify(service, Mockito.never()).update(Mockito.any(Book.class));
+    }
+    @Test
+    @DisplayName("Deve retornar 409 quando outra requisicao alterar o livro durante a atualizacao")
+    public void concurrentUpdateConflictTest() throws Exception{
+        //CENARIO
+        Book book = Book.builder().id(1L).author("Artur").title("As Aventuras").isbn("001").version(3L).build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(service.update(Mockito.any(Book.class)))
+                .willThrow(new ObjectOptimisticLockingFailureException(Book.class, 1L));
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.patch(BOOK_API.concat("/1"))
+                        .content("{\"author\":\"Fulano\"}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("errors[0]").value("Resource was modified by another request"));
+    }
+    @Test
     @DisplayName("Deve filtrar livros")
     public void findBooksTest() throws Exception{
         //CENARIO
@@ -267,10 +361,341 @@ public class BookControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1))) // REGISTROS
                 .andExpect(jsonPath("totalElements").value(1))
-                .andExpect(jsonPath("pageable.pageSize").value(100))
-                .andExpect(jsonPath("pageable.pageNumber").value(0))
+                .andExpect(jsonPath("size").value(100))
+                .andExpect(jsonPath("page").value(0))
+                .andExpect(jsonPath("pageable").doesNotExist())
         ;
     }
+    @Test
+    @DisplayName("Deve importar livros em lote e informar o resultado de cada linha")
+    public void importBooksTest() throws Exception{
+        //CENARIO
+        String ndjson = "{\"title\":\"As Aventuras\",\"author\":\"Artur\",\"isbn\":\"001\"}\n"
+                + "{\"title\":\"Sem Autor\",\"isbn\":\"002\"}\n"
+                + "{\"title\":\"Repetido\",\"author\":\"Artur\",\"isbn\":\"001\"}\n";
+
+        BDDMockito.given(service.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(
+                        BookImportResultDTO.builder().isbn("001").id(1L)
+                                .status(BookImportResultDTO.Status.CREATED).build(),
+                        BookImportResultDTO.builder().isbn("001")
+                                .status(BookImportResultDTO.Status.DUPLICATED).build()));
+
+        //EXECUCAO
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson);
+
+        //VERIFICACAO
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(containsString("\"line\":1,\"isbn\":\"001\",\"status\":\"CREATED\",\"id\":1")))
+                .andExpect(content().string(containsString("\"line\":2,\"isbn\":\"002\",\"status\":\"INVALID\"")))
+                .andExpect(content().string(containsString("\"line\":3,\"isbn\":\"001\",\"status\":\"DUPLICATED\"")));
+
+        Mockito.verify(service, Mockito.times(1)).saveAll(Mockito.anyList());
+    }
+    @Test
+    @DisplayName("Deve encerrar a importacao com uma linha INVALID quando o JSON estiver malformado")
+    public void importMalformedBooksTest() throws Exception{
+        //CENARIO
+        String ndjson = "{\"title\":\"As Aventuras\",\"author\":\"Artur\",\"isbn\":\"001\"}\n"
+                + "{\"title\":\"Quebrado\",\"author\":\n";
+
+        BDDMockito.given(service.saveAll(Mockito.anyList()))
+                .willReturn(Arrays.asList(BookImportResultDTO.builder().isbn("001").id(1L)
+                        .status(BookImportResultDTO.Status.CREATED).build()));
+
+        //EXECUCAO
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/import"))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson);
+
+        //VERIFICACAO
+        String body = mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"line\":1,\"isbn\":\"001\",\"status\":\"CREATED\",\"id\":1")))
+                .andExpect(content().string(containsString("\"line\":2,")))
+                .andExpect(content().string(containsString("\"status\":\"INVALID\"")))
+                .andExpect(content().string(containsString("JSON invalido")))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.lines()).hasSize(2);
+    }
+    @Test
+    @DisplayName("Deve buscar livros em lote na ordem pedida informando as chaves inexistentes")
+    public void lookupBooksTest() throws Exception{
+        //CENARIO
+        Book first = Book.builder().id(1L).title("As Aventuras").author("Artur").isbn("001").build();
+        Book second = Book.builder().id(2L).title("Outras Aventuras").author("Artur").isbn("002").build();
+        BDDMockito.given(service.getByIds(Arrays.asList(2L, 9L, 1L))).willReturn(Map.of(1L, first, 2L, second));
+        BDDMockito.given(service.getByIsbns(Arrays.asList("001", "999"))).willReturn(Map.of("001", first));
+
+        //EXECUCAO
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[2, 9, 1],\"isbns\":[\"001\", \"999\"]}");
+
+        //VERIFICACAO
+        mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[0].status").value("FOUND"))
+                .andExpect(jsonPath("$[0].book.title").value("Outras Aventuras"))
+                .andExpect(jsonPath("$[1].id").value(9))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[2].book.isbn").value("001"))
+                .andExpect(jsonPath("$[3].id").value(1))
+                .andExpect(jsonPath("$[3].status").value("FOUND"))
+                .andExpect(jsonPath("$[4].isbn").value("999"))
+                .andExpect(jsonPath("$[4].status").value("NOT_FOUND"));
+    }
+    @Test
+    @DisplayName("Deve retornar 400 na busca em lote acima do limite de chaves")
+    public void lookupBooksLimitTest() throws Exception{
+        //CENARIO
+        String isbns = IntStream.rangeClosed(0, BookController.MAX_LOOKUP_KEYS)
+                .mapToObj(i -> "\"" + i + "\"").collect(Collectors.joining(","));
+
+        //EXECUCAO
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .post(BOOK_API.concat("/batch"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbns\":[" + isbns + "]}");
+
+        //VERIFICACAO
+        mvc.perform(request)
+                .andExpect(status().isBadRequest());
+        Mockito.verify(service, Mockito.never()).getByIsbns(Mockito.anyCollection());
+    }
+    @Test
+    @DisplayName("Deve retornar 400 ao combinar o filtro de disponibilidade com o cursor")
+    public void scrollBooksWithAvailableTest() throws Exception{
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=&available=true"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        mvc.perform(request)
+                .andExpect(status().isBadRequest());
+        Mockito.verify(service, Mockito.never()).findAfter(Mockito.any(Book.class), Mockito.anyLong(), Mockito.anyInt());
+    }
+    @Test
+    @DisplayName("Deve paginar livros por cursor devolvendo o proximo cursor")
+    public void scrollBooksTest() throws Exception{
+        //CENARIO
+        Book first = Book.builder().id(1L).title("As Aventuras").author("Artur").isbn("001").build();
+        Book second = Book.builder().id(2L).title("As Aventuras").author("Artur").isbn("002").build();
+        BDDMockito.given(service.findAfter(Mockito.any(Book.class), Mockito.eq(0L), Mockito.eq(2)))
+                .willReturn(Arrays.asList(first, second));
+
+        //EXECUCAO
+        MockHttpServletRequestBuilder request = MockMvcRequestBuilders
+                .get(BOOK_API.concat("?cursor=&size=1"))
+                .accept(MediaType.APPLICATION_JSON);
+
+        //VERIFICACAO
+        String body = mvc.perform(request)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(1))
+                .andExpect(jsonPath("nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+
+        String cursor = new ObjectMapper().readTree(body).get("nextCursor").asText();
+        BDDMockito.given(service.findAfter(Mockito.any(Book.class), Mockito.eq(1L), Mockito.eq(2)))
+                .willReturn(Arrays.asList(second));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?size=1&cursor=" + cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content[0].id").value(2))
+                .andExpect(jsonPath("nextCursor").doesNotExist());
+    }
+    @Test
+    @DisplayName("Deve retornar bad request para um cursor invalido")
+    public void invalidCursorTest() throws Exception{
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?cursor=xyz")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid cursor"));
+    }
+    @Test
+    @DisplayName("Deve buscar livros por texto na ordem de relevancia")
+    public void searchBooksTest() throws Exception{
+        Book book = Book.builder().id(3L).title("As Aventuras").author("Artur").isbn("001").build();
+        BDDMockito.given(searchService.search("aventu", 5))
+                .willReturn(Arrays.asList(book));
+        BDDMockito.given(searchService.version()).willReturn("k3.2");
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/search?q=aventu&size=5"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + catalogVersion.etag() + "-k3.2\""))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].id").value(3));
+    }
+    @Test
+    @DisplayName("Deve listar o historico de emprestimos do livro com cliente e id de cada emprestimo")
+    public void loansByBookTest() throws Exception{
+        //CENARIO
+        Book book = Book.builder().id(1L).title("As Aventuras").author("Artur").isbn("001").build();
+        LoanSummary loan = LoanSummary.builder().id(7L).customer("Fulano").loanDate(LocalDate.now())
+                .bookId(1L).isbn("001").title("As Aventuras").author("Artur").build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getLoansByBook(Mockito.eq(1L), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<LoanSummary>(Arrays.asList(loan), PageRequest.of(0, 10), 1));
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans?page=0&size=10"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(7))
+                .andExpect(jsonPath("content[0].customer").value("Fulano"))
+                .andExpect(jsonPath("content[0].book.isbn").value("001"))
+                .andExpect(jsonPath("totalElements").value(1));
+    }
+    @Test
+    @DisplayName("Deve paginar o historico de emprestimos do livro por cursor")
+    public void scrollLoansByBookTest() throws Exception{
+        Book book = Book.builder().id(1L).isbn("001").build();
+        LoanSummary loan = LoanSummary.builder().id(7L).customer("Fulano").bookId(1L).isbn("001").build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+        BDDMockito.given(loanService.getLoansByBookAfter(1L, 0L, 11)).willReturn(Arrays.asList(loan));
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans?cursor=&size=10"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content[0].id").value(7))
+                .andExpect(jsonPath("nextCursor").doesNotExist());
+    }
+    @Test
+    @DisplayName("Deve filtrar os livros disponiveis pelo indice de disponibilidade")
+    public void findAvailableBooksTest() throws Exception{
+        //CENARIO
+        Book book = Book.builder().id(3L).title("As Aventuras").author("Artur").isbn("001").build();
+        BDDMockito.given(availabilityService.version()).willReturn("4-9-12");
+        BDDMockito.given(availabilityService.find(Mockito.any(Book.class), Mockito.eq(true), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(book), PageRequest.of(0, 20), 1));
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?available=true&title=aventuras"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + catalogVersion.etag() + "-4-9-12\""))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andExpect(jsonPath("content", hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(3))
+                .andExpect(jsonPath("totalElements").value(1));
+        Mockito.verify(availabilityService).find(Mockito.argThat(filter -> "aventuras".equals(filter.getTitle())),
+                Mockito.eq(true), Mockito.any(Pageable.class));
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+    @Test
+    @DisplayName("Deve transmitir os livros filtrados em ndjson, um por linha")
+    public void streamBooksTest() throws Exception{
+        //CENARIO
+        Book first = Book.builder().id(1L).title("As Aventuras").author("Artur").isbn("001").build();
+        Book second = Book.builder().id(2L).title("Outras Aventuras").author("Artur").isbn("002").build();
+        BDDMockito.given(reactiveService.find(Mockito.any(Book.class))).willReturn(Flux.just(first, second));
+
+        //EXECUCAO
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?author=Artur"))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //VERIFICACAO
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, containsString(MediaType.APPLICATION_NDJSON_VALUE)))
+                .andExpect(content().string(
+                        "{\"id\":1,\"title\":\"As Aventuras\",\"author\":\"Artur\",\"isbn\":\"001\"}\n"
+                        + "{\"id\":2,\"title\":\"Outras Aventuras\",\"author\":\"Artur\",\"isbn\":\"002\"}\n"));
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+    }
+    @Test
+    @DisplayName("Deve transmitir o historico de emprestimos do livro em ndjson")
+    public void streamLoansByBookTest() throws Exception{
+        Book book = Book.builder().id(1L).isbn("001").build();
+        LoanSummary loan = LoanSummary.builder().id(7L).customer("Fulano").bookId(1L).isbn("001").build();
+        BDDMockito.given(reactiveService.getById(1L)).willReturn(Mono.just(book));
+        BDDMockito.given(reactiveLoanService.getLoansByBook(1L)).willReturn(Flux.just(loan));
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans"))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"customer\":\"Fulano\"")));
+    }
+    @Test
+    @DisplayName("Deve retornar 404 ao transmitir emprestimos de livro inexistente")
+    public void streamLoansByInexistentBookTest() throws Exception{
+        BDDMockito.given(reactiveService.getById(1L)).willReturn(Mono.empty());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans"))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+        Mockito.verify(reactiveLoanService, Mockito.never()).getLoansByBook(anyLong());
+    }
+    @Test
+    @DisplayName("Deve retornar 404 ao listar emprestimos de livro inexistente")
+    public void loansByInexistentBookTest() throws Exception{
+        BDDMockito.given(service.getById(anyLong())).willReturn(Optional.empty());
+
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1/loans")))
+                .andExpect(status().isNotFound());
+    }
+    @Test
+    @DisplayName("Deve responder 304 quando a ETag do livro nao mudou")
+    public void bookNotModifiedTest() throws Exception{
+        //CENARIO
+        Book book = Book.builder().id(1L).title("As Aventuras").author("Artur").isbn("001")
+                .version(3L).updatedAt(Instant.parse("2022-09-20T10:15:30.123456Z")).build();
+        BDDMockito.given(service.getById(1L)).willReturn(Optional.of(book));
+
+        //EXECUCAO
+        String etag = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, must-revalidate, public, s-maxage=300"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        //VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("/1")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+    @Test
+    @DisplayName("Deve responder 304 na listagem sem consultar os livros enquanto o catalogo nao mudar")
+    public void findBooksNotModifiedTest() throws Exception{
+        //CENARIO
+        BDDMockito.given(service.find(Mockito.any(Book.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<Book>(Arrays.asList(), PageRequest.of(0, 10), 0));
+        String etag = mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Mockito.clearInvocations(service);
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        Mockito.verify(service, Mockito.never()).find(Mockito.any(Book.class), Mockito.any(Pageable.class));
+
+        BDDMockito.given(catalogVersion.etag()).willReturn("11-2");
+        BDDMockito.given(catalogVersion.lastModified()).willReturn(Instant.parse("2022-09-20T10:16:30Z"));
+        mvc.perform(MockMvcRequestBuilders.get(BOOK_API.concat("?page=0&size=10")).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
     private BookDTO createNewBook() {
         return BookDTO
                 .builder()
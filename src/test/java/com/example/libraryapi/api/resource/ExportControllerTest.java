@@ -0,0 +1,144 @@
+package com.example.libraryapi.api.resource;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class ExportControllerTest {
+
+    static final String EXPORT_API = "/api/exports";
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    LoanRepository loanRepository;
+
+    Book book;
+    Loan loan;
+
+    @BeforeEach
+    public void setUp(){
+        book = bookRepository.save(Book.builder().title("Aventuras, \"Volume 1\"").author("Fulano").isbn("exp-1").build());
+        loan = loanRepository.save(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.of(2022, 9, 1)).build());
+    }
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve exportar os livros em CSV")
+    public void exportBooksCsvTest() throws Exception{
+        MvcResult started = mvc.perform(get(EXPORT_API.concat("/books")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books.csv\""))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body).isEqualTo("id,isbn,title,author\n"
+                + book.getId() + ",exp-1,\"Aventuras, \"\"Volume 1\"\"\",Fulano\n");
+    }
+
+    @Test
+    @DisplayName("Deve exportar so o cabecalho do CSV quando a tabela estiver vazia")
+    public void exportEmptyLoansCsvTest() throws Exception{
+        loanRepository.deleteAll();
+
+        MvcResult started = mvc.perform(get(EXPORT_API.concat("/loans")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        assertThat(body).isEqualTo("id,book_id,isbn,customer,loan_date,returned\n");
+    }
+
+    @Test
+    @DisplayName("Deve exportar os emprestimos em NDJSON compactado com gzip")
+    public void exportLoansNdjsonGzipTest() throws Exception{
+        MvcResult started = mvc.perform(get(EXPORT_API.concat("/loans?format=ndjson"))
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        String json = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+        assertThat(json).isEqualTo("{\"id\":" + loan.getId() + ",\"book_id\":" + book.getId()
+                + ",\"isbn\":\"exp-1\",\"customer\":\"Ciclano\",\"loan_date\":\"2022-09-01\",\"returned\":null}\n");
+    }
+
+    @Test
+    @DisplayName("Deve exportar sem compressao quando o cliente recusar gzip ou nao o aceitar")
+    public void exportWithoutGzipTest() throws Exception{
+        for (String acceptEncoding : new String[]{"gzip;q=0, deflate", "x-gzip-foo", "*;q=1, gzip;q=0", "identity"}) {
+            MvcResult started = mvc.perform(get(EXPORT_API.concat("/books?format=csv"))
+                            .header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            mvc.perform(asyncDispatch(started))
+                    .andExpect(status().isOk())
+                    .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        }
+    }
+
+    @Test
+    @DisplayName("Deve interpretar os tokens e os pesos do Accept-Encoding")
+    public void acceptsGzipTest(){
+        assertThat(ExportController.acceptsGzip("gzip")).isTrue();
+        assertThat(ExportController.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(ExportController.acceptsGzip("*")).isTrue();
+        assertThat(ExportController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ExportController.acceptsGzip("gzip;q=0.0, *")).isFalse();
+        assertThat(ExportController.acceptsGzip("x-gzip-foo")).isFalse();
+        assertThat(ExportController.acceptsGzip("gzip;q=abc")).isFalse();
+        assertThat(ExportController.acceptsGzip(null)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Deve retornar erro para formato de exportacao desconhecido")
+    public void invalidExportFormatTest() throws Exception{
+        mvc.perform(get(EXPORT_API.concat("/books?format=xml")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("errors[0]").value("Invalid export format"));
+    }
+}
@@ -2,13 +2,17 @@ package com.example.libraryapi.api.resource;
 
 import com.example.libraryapi.api.dto.LoanDTO;
 import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.api.dto.LoanReturnDTO;
+import com.example.libraryapi.api.dto.LoanReturnResultDTO;
 import com.example.libraryapi.api.dto.ReturnedLoanDTO;
 import com.example.libraryapi.exception.BusinessException;
 import com.example.libraryapi.model.entity.Loan;
 import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.projection.LoanSummary;
 import com.example.libraryapi.service.BookService;
 import com.example.libraryapi.service.LoanService;
-import com.example.libraryapi.service.LoanServiceTesst;
+import com.example.libraryapi.service.LoanServiceTest;
+import com.example.libraryapi.service.ReactiveLoanService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.DisplayName;
@@ -23,17 +27,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import reactor.core.publisher.Flux;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -49,6 +64,8 @@ public class LoanControllerTest {
     private BookService bookService;
     @MockBean
     private LoanService loanService;
+    @MockBean
+    private ReactiveLoanService reactiveLoanService;
     @Test
     @DisplayName("Deve realizar um emprestimo")
     public void createLoanTest() throws Exception{
@@ -138,6 +155,8 @@ public class LoanControllerTest {
 
         BDDMockito.given(loanService.getById(Mockito.anyLong()))
                 .willReturn(Optional.of(loan));
+        BDDMockito.given(loanService.update(loan))
+                .willReturn(Loan.builder().id(1L).returned(true).version(1L).build());
 
         //JSON criado e atribuido
         String json = new ObjectMapper().writeValueAsString(dto);
@@ -147,11 +166,41 @@ public class LoanControllerTest {
                         .accept(MediaType.APPLICATION_JSON)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
-                .andExpect(status().isOk());
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-1\""));
 
         Mockito.verify(loanService, Mockito.times(1)).update(loan);
     }
 
+    @Test
+    @DisplayName("Deve buscar um emprestimo com a ETag da versao")
+    public void getLoanTest() throws Exception{
+        Loan loan = Loan.builder().id(1L).customer("Fulano").version(3L)
+                .book(Book.builder().id(2L).isbn("123").build()).build();
+        BDDMockito.given(loanService.getById(1L)).willReturn(Optional.of(loan));
+
+        mvc.perform(get(LOAN_API.concat("/1")).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-3\""))
+                .andExpect(jsonPath("customer").value("Fulano"))
+                .andExpect(jsonPath("isbn").value("123"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 412 ao devolver um emprestimo com If-Match de outra versao")
+    public void returnBookStaleIfMatchTest() throws Exception{
+        Loan loan = Loan.builder().id(1L).version(2L).build();
+        BDDMockito.given(loanService.getById(1L)).willReturn(Optional.of(loan));
+
+        mvc.perform(patch(LOAN_API.concat("/1"))
+                        .header(HttpHeaders.IF_MATCH, "\"1-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"returned\":true}"))
+                .andExpect(status().isPreconditionFailed());
+
+        Mockito.verify(loanService, Mockito.never()).update(Mockito.any(Loan.class));
+    }
+
     @Test
     @DisplayName("Deve retornar 404 quando tentar devolver um livro inexistente.")
     public void returnInexistentBookTest() throws Exception{
@@ -174,24 +223,59 @@ public class LoanControllerTest {
         //Mockito.verify(loanService, Mockito.times(1)).update(loan);
     }
 
+    @Test
+    @DisplayName("Deve devolver varios emprestimos de uma vez com o resultado de cada item")
+    public void returnBooksTest() throws Exception{
+        //CENARIO
+        LoanReturnDTO dto = LoanReturnDTO.builder().ids(Arrays.asList(1L, 2L)).isbns(Arrays.asList("123")).build();
+        BDDMockito.given(loanService.returnAll(dto.getIds(), dto.getIsbns())).willReturn(Arrays.asList(
+                LoanReturnResultDTO.builder().id(1L).isbn("321").status(LoanReturnResultDTO.Status.RETURNED).build(),
+                LoanReturnResultDTO.builder().id(2L).status(LoanReturnResultDTO.Status.NOT_FOUND).build(),
+                LoanReturnResultDTO.builder().id(3L).isbn("123").status(LoanReturnResultDTO.Status.ALREADY_RETURNED).build()));
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.post(LOAN_API.concat("/returns"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", Matchers.hasSize(3)))
+                .andExpect(jsonPath("$[0].status").value("RETURNED"))
+                .andExpect(jsonPath("$[1].status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$[2].isbn").value("123"));
+    }
+
+    @Test
+    @DisplayName("Deve retornar 400 na devolucao em massa acima do limite de ids")
+    public void returnBooksLimitTest() throws Exception{
+        //CENARIO
+        List<Long> ids = LongStream.rangeClosed(1, LoanController.MAX_RETURN_IDS + 1).boxed().collect(Collectors.toList());
+        LoanReturnDTO dto = LoanReturnDTO.builder().ids(ids).build();
+
+        //EXECUCAO E VERIFICACAO
+        mvc.perform(MockMvcRequestBuilders.post(LOAN_API.concat("/returns"))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(dto)))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(loanService, Mockito.never()).returnAll(Mockito.any(), Mockito.any());
+    }
+
     @Test
     @DisplayName("Deve filtrar emprestimos")
     public void findLoansTest() throws Exception{
         //CENARIO
         Long id = 1L;
 
-        Loan loan = LoanServiceTesst.createLoan();
+        LoanSummary loan = LoanServiceTest.createLoanSummary();
         loan.setId(id);
-        Book book = Book.builder().id(1L)
-                .isbn("321").build();
-        loan.setBook(book);
 
 
         BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
-                .willReturn(new PageImpl<Loan>(Arrays.asList(loan), PageRequest.of(0,10),1));
+                .willReturn(new PageImpl<LoanSummary>(Arrays.asList(loan), PageRequest.of(0,10),1));
 
         String queryString = String.format("?isbn=%s&customer=%s&page=0&size=10",
-                book.getIsbn(), loan.getCustomer());
+                loan.getIsbn(), loan.getCustomer());
 
         //EXECUCAO
         MockHttpServletRequestBuilder request = MockMvcRequestBuilders
@@ -201,9 +285,81 @@ public class LoanControllerTest {
         mvc.perform(request)
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("content", Matchers.hasSize(1))) // REGISTROS
+                .andExpect(jsonPath("content[0].book.isbn").value("321"))
                 .andExpect(jsonPath("totalElements").value(1))
-                .andExpect(jsonPath("pageable.pageSize").value(10))
-                .andExpect(jsonPath("pageable.pageNumber").value(0))
+                .andExpect(jsonPath("size").value(10))
+                .andExpect(jsonPath("page").value(0))
+                .andExpect(jsonPath("pageable").doesNotExist())
         ;
     }
+
+    @Test
+    @DisplayName("Deve retornar 400 ao ordenar emprestimos por campo diferente de id, loanDate e customer")
+    public void findLoansInvalidSortTest() throws Exception{
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&sort=returned,asc"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verify(loanService, Mockito.never()).find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve repassar a ordenacao por data do emprestimo ao servico")
+    public void findLoansSortedByLoanDateTest() throws Exception{
+        //CENARIO
+        BDDMockito.given(loanService.find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class)))
+                .willReturn(new PageImpl<LoanSummary>(Collections.emptyList(), PageRequest.of(0, 10), 0));
+
+        //EXECUCAO
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&sort=loanDate,desc"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        //VERIFICACAO
+        Mockito.verify(loanService).find(Mockito.any(LoanFilterDTO.class),
+                Mockito.argThat(pageable -> pageable.getSort().equals(Sort.by(Sort.Direction.DESC, "loanDate"))));
+    }
+
+    @Test
+    @DisplayName("Deve transmitir os emprestimos filtrados em ndjson, sem count")
+    public void streamLoansTest() throws Exception{
+        //CENARIO
+        LoanSummary first = LoanServiceTest.createLoanSummary();
+        first.setId(1L);
+        LoanSummary second = LoanServiceTest.createLoanSummary();
+        second.setId(2L);
+        BDDMockito.given(reactiveLoanService.find(Mockito.any(LoanFilterDTO.class))).willReturn(Flux.just(first, second));
+
+        //EXECUCAO
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano"))
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        //VERIFICACAO
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"id\":1").contains("\"isbn\":\"321\"");
+        assertThat(lines[1]).contains("\"id\":2");
+        Mockito.verify(loanService, Mockito.never()).find(Mockito.any(LoanFilterDTO.class), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Deve paginar emprestimos por cursor")
+    public void scrollLoansTest() throws Exception{
+        LoanSummary loan = LoanServiceTest.createLoanSummary();
+        loan.setId(5L);
+        BDDMockito.given(loanService.findAfter(Mockito.any(LoanFilterDTO.class), Mockito.eq(0L), Mockito.eq(11)))
+                .willReturn(Arrays.asList(loan));
+
+        mvc.perform(MockMvcRequestBuilders.get(LOAN_API.concat("?customer=Fulano&cursor=&size=10"))
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("content", Matchers.hasSize(1)))
+                .andExpect(jsonPath("content[0].id").value(5))
+                .andExpect(jsonPath("nextCursor").doesNotExist());
+    }
 }
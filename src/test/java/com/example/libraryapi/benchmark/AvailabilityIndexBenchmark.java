@@ -0,0 +1,69 @@
+package com.example.libraryapi.benchmark;
+
+import com.example.libraryapi.service.impl.BookAvailabilityIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/*INDICE DE DISPONIBILIDADE COM UM CATALOGO DE MILHOES DE LIVROS (10% EMPRESTADOS): PAGINA SEM FILTRO NO INICIO E NO FIM
+DO CATALOGO, PAGINA CRUZADA COM OS CANDIDATOS DE UM FILTRO DE TEXTO (1% DO CATALOGO) E EMPRESTIMO + DEVOLUCAO*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AvailabilityIndexBenchmark {
+
+    @Param({"1000000", "5000000"})
+    public int books;
+
+    private BookAvailabilityIndex index;
+    private RoaringBitmap candidates;
+    private long lastPageOffset;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        index = new BookAvailabilityIndex();
+        index.load(LongStream.rangeClosed(1, books).boxed(),
+                random.longs(books / 10, 1, books + 1L).boxed());
+        candidates = new RoaringBitmap();
+        random.ints(books / 100, 1, books + 1).forEach(candidates::add);
+        lastPageOffset = index.page(null, true, 0, 0).getTotal() - 20;
+    }
+
+    @Benchmark
+    public BookAvailabilityIndex.IdPage firstPage() {
+        return index.page(null, true, 0, 20);
+    }
+
+    @Benchmark
+    public BookAvailabilityIndex.IdPage lastPage() {
+        return index.page(null, true, lastPageOffset, 20);
+    }
+
+    @Benchmark
+    public BookAvailabilityIndex.IdPage filteredPage() {
+        return index.page(candidates, true, 100, 20);
+    }
+
+    @Benchmark
+    public void loanAndReturn() {
+        index.loaned(7L);
+        index.returned(List.of(7L));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AvailabilityIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.libraryapi.benchmark;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/*BookServiceImpl.find (SEM O DECORATOR DE CACHE) CONTRA O H2 POPULADO*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookServiceBenchmark {
+
+    private BookService service;
+
+    @Setup
+    public void setUp(SeededApplication application) {
+        service = application.bean("bookServiceImpl", BookService.class);
+    }
+
+    @Benchmark
+    public Page<Book> findByAuthor() {
+        return service.find(Book.builder().author("Autor 42").build(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> findByIsbn() {
+        return service.find(Book.builder().isbn(SeededApplication.isbn(4242)).build(), PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public Page<Book> findAllDeepPage() {
+        return service.find(new Book(), PageRequest.of(200, 20));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.libraryapi.benchmark;
+
+import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.api.dto.LoanDTO;
+import com.example.libraryapi.api.mapper.BookMapper;
+import com.example.libraryapi.api.mapper.LoanMapper;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/*COMPARA O CUSTO POR LINHA DO MODELMAPPER (COMO ERA USADO NOS CONTROLLERS) COM OS MAPPERS ESCRITOS A MAO*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    private ModelMapper modelMapper;
+    private Loan loan;
+
+    @Setup
+    public void setUp() {
+        modelMapper = new ModelMapper();
+        Book book = Book.builder().id(1L).title("As Aventuras").author("Fulano").isbn("123").build();
+        loan = Loan.builder().id(1L).customer("Fulano").book(book).loanDate(LocalDate.now()).build();
+    }
+
+    @Benchmark
+    public LoanDTO modelMapperLoanRow() {
+        BookDTO bookDTO = modelMapper.map(loan.getBook(), BookDTO.class);
+        LoanDTO loanDTO = modelMapper.map(loan, LoanDTO.class);
+        loanDTO.setBook(bookDTO);
+        return loanDTO;
+    }
+
+    @Benchmark
+    public LoanDTO loanMapperLoanRow() {
+        return LoanMapper.toDTO(loan);
+    }
+
+    @Benchmark
+    public BookDTO modelMapperBookRow() {
+        return modelMapper.map(loan.getBook(), BookDTO.class);
+    }
+
+    @Benchmark
+    public BookDTO bookMapperBookRow() {
+        return BookMapper.toDTO(loan.getBook());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DtoMappingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.libraryapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*GERADOR DE CARGA SIMPLES PARA COMPARAR MODOS DE EXECUCAO DA API JA EM PE (PLATFORM x VIRTUAL THREADS, PERFIS, ETC).
+USO: HttpLoadTest <url> <requisicoes simultaneas> <segundos>. IMPRIME UMA LINHA JSON COM O RESULTADO*/
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/api/books?page=0&size=20");
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 20;
+        System.out.println(run(uri, concurrency, seconds));
+    }
+
+    public static String run(URI uri, int concurrency, long seconds) throws InterruptedException {
+        return run(uri, "*/*", concurrency, seconds);
+    }
+
+    public static String run(URI uri, String accept, int concurrency, long seconds) throws InterruptedException {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).header("Accept", accept).GET().build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong completed = new AtomicLong();
+        long[] latencies = new long[5_000_000];
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        long begin = System.nanoTime();
+        while (System.nanoTime() < deadline) {
+            inFlight.acquire();
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long index = completed.getAndIncrement();
+                if (index < latencies.length) {
+                    latencies[(int) index] = System.nanoTime() - start;
+                }
+                if (failure != null || response.statusCode() >= 400) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+            });
+        }
+        inFlight.acquire(concurrency);
+        long elapsed = System.nanoTime() - begin;
+
+        int samples = (int) Math.min(completed.get(), latencies.length);
+        long[] sorted = Arrays.copyOf(latencies, samples);
+        Arrays.sort(sorted);
+        return String.format("{\"url\":\"%s\",\"concurrency\":%d,\"requests\":%d,\"errors\":%d,"
+                        + "\"throughput\":%.1f,\"p50Ms\":%.2f,\"p99Ms\":%.2f}",
+                uri, concurrency, completed.get(), errors.get(),
+                completed.get() / (elapsed / 1e9), percentile(sorted, 0.50), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(percentile * (sorted.length - 1)))] / 1e6;
+    }
+}
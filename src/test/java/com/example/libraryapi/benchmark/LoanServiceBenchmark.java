@@ -0,0 +1,77 @@
+package com.example.libraryapi.benchmark;
+
+import com.example.libraryapi.api.dto.LoanDTO;
+import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.api.dto.PageDTO;
+import com.example.libraryapi.api.resource.LoanController;
+import com.example.libraryapi.exception.BusinessException;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.service.BookService;
+import com.example.libraryapi.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*LoanServiceImpl.save E A BUSCA DO LoanController.find (CONSULTA + MAPEAMENTO PARA DTO)*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanServiceBenchmark {
+
+    private LoanService service;
+    private LoanController controller;
+    private List<Book> freeBooks;
+    private Book loanedBook;
+    private int next;
+
+    @Setup
+    public void setUp(SeededApplication application) {
+        service = application.bean(LoanService.class);
+        controller = application.bean(LoanController.class);
+        BookService bookService = application.bean(BookService.class);
+        /*OS LIVROS ACIMA DE LOANS NAO TEM EMPRESTIMO ATIVO*/
+        freeBooks = new ArrayList<>();
+        for (int i = SeededApplication.LOANS; i < SeededApplication.BOOKS; i++) {
+            freeBooks.add(bookService.getBookByIsbn(SeededApplication.isbn(i)).get());
+        }
+        loanedBook = bookService.getBookByIsbn(SeededApplication.isbn(0)).get();
+    }
+
+    /*EMPRESTA E DEVOLVE PARA QUE O LIVRO FIQUE LIVRE NA PROXIMA VOLTA (INDICE UNICO DE EMPRESTIMO ATIVO)*/
+    @Benchmark
+    public Loan saveAndReturn() {
+        Book book = freeBooks.get(next++ % freeBooks.size());
+        Loan loan = service.save(Loan.builder().book(book).customer("Benchmark").loanDate(LocalDate.now()).build());
+        loan.setReturned(true);
+        return service.update(loan);
+    }
+
+    @Benchmark
+    public Object saveAlreadyLoaned() {
+        try {
+            return service.save(Loan.builder().book(loanedBook).customer("Benchmark").loanDate(LocalDate.now()).build());
+        } catch (BusinessException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public PageDTO<LoanDTO> controllerFindByCustomer() {
+        LoanFilterDTO filter = LoanFilterDTO.builder().customer(SeededApplication.customer(7)).build();
+        return controller.find(filter, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public PageDTO<LoanDTO> controllerFindByIsbn() {
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn(SeededApplication.isbn(7)).build();
+        return controller.find(filter, PageRequest.of(0, 20));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.libraryapi.benchmark;
+
+import com.example.libraryapi.api.dto.BookDTO;
+import com.example.libraryapi.api.dto.PageDTO;
+import com.example.libraryapi.api.mapper.BookMapper;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.BookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/*SERIALIZACAO JSON DE UMA PAGINA DE BookDTO COM O ObjectMapper CONFIGURADO PELO SPRING, COMO NA RESPOSTA DE GET /api/books:
+page = PageImpl (RESPOSTA ANTIGA), lean = PageDTO; blackbird = ObjectMapper COM O BlackbirdModule (library.jackson.blackbird).
+O TAMANHO DE CADA CORPO EM BYTES E IMPRESSO NO SETUP*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    public int size;
+
+    @Param({"page", "lean"})
+    public String envelope;
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    private ObjectMapper objectMapper;
+    private Object body;
+
+    @Setup
+    public void setUp(SeededApplication application) throws JsonProcessingException {
+        objectMapper = application.bean(ObjectMapper.class);
+        if (blackbird) {
+            objectMapper = objectMapper.copy().registerModule(new BlackbirdModule());
+        }
+        Page<BookDTO> page = application.bean(BookService.class).find(new Book(), PageRequest.of(0, size)).map(BookMapper::toDTO);
+        body = "lean".equals(envelope)
+                ? new PageDTO<>(page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages(), page.getContent())
+                : page;
+        System.out.println(envelope + " size=" + size + ": " + objectMapper.writeValueAsBytes(body).length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] writePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(body);
+    }
+}
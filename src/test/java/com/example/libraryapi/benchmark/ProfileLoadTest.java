@@ -0,0 +1,58 @@
+package com.example.libraryapi.benchmark;
+
+import com.example.libraryapi.LibraryApiApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*COMPARA A VAZAO DA API ENTRE PERFIS (ANTES/DEPOIS DO PERFIL prod). CADA CENARIO SOBE A APLICACAO NESTE PROCESSO EM
+PORTA ALEATORIA, POPULA O H2 COMO OS BENCHMARKS JMH E RODA O HttpLoadTest CONTRA A BUSCA DE EMPRESTIMOS POR CLIENTE
+(IDS + LINHAS + COUNT, SEM CACHE HTTP).
+USO: ProfileLoadTest <segundos> <requisicoes simultaneas> <cenario>...
+CENARIO: default | perfis[:propriedade=valor,...], EX.: prod:spring.datasource.hikari.maximum-pool-size=4
+-Dload.path E -Dload.accept TROCAM O ENDPOINT, EX.: -Dload.path=/api/loans?customer=Cliente%207 -Dload.accept=application/x-ndjson
+mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.libraryapi.benchmark.ProfileLoadTest*/
+public class ProfileLoadTest {
+
+    private static final String PATH = System.getProperty("load.path", "/api/loans?customer=Cliente%207&page=0&size=20");
+    private static final String ACCEPT = System.getProperty("load.accept", "*/*");
+    private static final long WARMUP_SECONDS = 15;
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 15;
+        int concurrency = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        List<String> scenarios = args.length > 2 ? Arrays.asList(args).subList(2, args.length) : List.of("default", "prod");
+
+        List<String> results = new ArrayList<>();
+        for (String scenario : scenarios) {
+            try (ConfigurableApplicationContext context = start(scenario)) {
+                SeededApplication.seed(context);
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                URI uri = URI.create("http://localhost:" + port + PATH);
+                HttpLoadTest.run(uri, ACCEPT, concurrency, WARMUP_SECONDS);
+                results.add("{\"scenario\":\"" + scenario + "\",\"accept\":\"" + ACCEPT + "\",\"result\":"
+                        + HttpLoadTest.run(uri, ACCEPT, concurrency, seconds) + "}");
+            }
+        }
+        results.forEach(System.out::println);
+    }
+
+    private static ConfigurableApplicationContext start(String scenario) {
+        String[] parts = scenario.split(":", 2);
+        List<String> properties = new ArrayList<>(List.of("server.port=0", "logging.level.root=WARN"));
+        if (parts.length > 1) {
+            properties.addAll(Arrays.asList(parts[1].split(",")));
+        }
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .properties(properties.toArray(new String[0]));
+        if (!"default".equals(parts[0])) {
+            builder.profiles(parts[0].split("\\+"));
+        }
+        return builder.run();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.libraryapi.benchmark;
+
+import com.example.libraryapi.LibraryApiApplication;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import com.example.libraryapi.service.BookService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/*CONTEXTO SPRING COMPLETO (SEM SERVIDOR WEB) COM H2 POPULADO, COMPARTILHADO POR TODOS OS BENCHMARKS DO FORK*/
+@State(Scope.Benchmark)
+public class SeededApplication {
+
+    public static final int BOOKS = 10_000;
+    public static final int LOANS = 5_000;
+
+    public ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(LibraryApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.format_sql=false",
+                        "logging.level.root=WARN",
+                        /*saveAlreadyLoaned VIOLA O INDICE UNICO DE PROPOSITO*/
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF")
+                .run();
+        seed(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public static void seed(ConfigurableApplicationContext context) {
+        List<Book> books = new ArrayList<>(BOOKS);
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(Book.builder()
+                    .isbn(isbn(i))
+                    .title("Titulo " + i)
+                    .author("Autor " + (i % 500))
+                    .build());
+        }
+        context.getBean(BookService.class).saveAll(books);
+
+        List<Loan> loans = new ArrayList<>(LOANS);
+        for (int i = 0; i < LOANS; i++) {
+            loans.add(Loan.builder()
+                    .book(books.get(i))
+                    .customer(customer(i))
+                    .loanDate(LocalDate.now().minusDays(i % 30))
+                    .build());
+        }
+        context.getBean(LoanRepository.class).saveAll(loans);
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> T bean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    public static String isbn(int i) {
+        return String.format("%06d", i);
+    }
+
+    public static String customer(int i) {
+        return "Cliente " + (i % 100);
+    }
+}
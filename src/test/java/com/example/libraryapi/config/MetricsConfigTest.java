@@ -0,0 +1,82 @@
+package com.example.libraryapi.config;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("test")
+public class MetricsConfigTest {
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    MeterRegistry registry;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    public void tearDown(){
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve medir os metodos de service e repositorio e os comandos SQL da requisicao")
+    public void methodAndSqlMetricsTest() throws Exception{
+        //CENARIO
+        Book book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("metrics-1").build());
+        entityManagerFactory.getCache().evictAll();/*SEM O CACHE DE SEGUNDO NIVEL O GET PRECISA IR AO BANCO*/
+
+        //EXECUCAO
+        mvc.perform(get("/api/books/" + book.getId())).andExpect(status().isOk());
+
+        //VERIFICACAO
+        Timer service = registry.find(MethodMetricsAspect.METRIC)
+                .tags("layer", "service", "class", "BookServiceImpl", "method", "getById").timer();
+        Timer repository = registry.find(MethodMetricsAspect.METRIC)
+                .tags("layer", "repository", "class", "BookRepository", "method", "findById").timer();
+        DistributionSummary statements = registry.find("library.http.sql.statements")
+                .tags("method", "GET", "uri", "/api/books/{id}").summary();
+
+        assertThat(service).isNotNull();
+        assertThat(service.count()).isGreaterThanOrEqualTo(1);
+        assertThat(repository).isNotNull();
+        assertThat(statements).isNotNull();
+        assertThat(statements.max()).isGreaterThanOrEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Deve expor os histogramas no endpoint do Prometheus")
+    public void prometheusEndpointTest() throws Exception{
+        mvc.perform(get("/api/books?title=x&page=0&size=5")).andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("library_method_seconds_bucket")))
+                .andExpect(content().string(containsString("library_http_sql_statements_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket")));
+    }
+}
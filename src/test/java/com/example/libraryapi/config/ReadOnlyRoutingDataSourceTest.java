@@ -0,0 +1,92 @@
+package com.example.libraryapi.config;
+
+import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import com.example.libraryapi.service.LoanService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*A "REPLICA" DO TESTE E O PROPRIO BANCO EM MEMORIA, ACESSADO POR OUTRO POOL: O QUE SE VERIFICA E DE QUAL POOL HIKARI
+SAIU A CONEXAO, CHAMANDO OS METODOS REAIS DO LoanService (O ReplicaReadAspect SO MARCA A THREAD PELO PROXY DO BEAN)*/
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "library.datasource.replica.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1"})
+@ActiveProfiles("test")
+public class ReadOnlyRoutingDataSourceTest {
+
+    @SpyBean(name = "primaryDataSource")
+    HikariDataSource primaryDataSource;
+    @SpyBean(name = "replicaDataSource")
+    HikariDataSource replicaDataSource;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    LoanService loanService;
+    @Autowired
+    LoanRepository loanRepository;
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve usar a replica so nas leituras @ReplicaRead somente leitura e o banco principal no resto")
+    public void routeByReadOnlyTest() throws Exception{
+        //CENARIO
+        Book book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("routing-1").build());
+        Loan loan = Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build();
+        LoanFilterDTO filter = LoanFilterDTO.builder().customer("Fulano").build();
+
+        //EXECUCAO E VERIFICACAO: ESCRITA
+        clearPools();
+        loanService.save(loan);
+        assertPrimaryOnly();
+
+        //@Transactional(readOnly = true) @ReplicaRead
+        clearPools();
+        assertThat(loanService.find(filter, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1);
+        Mockito.verify(replicaDataSource).getConnection();
+
+        //@Transactional(readOnly = true) SEM @ReplicaRead
+        clearPools();
+        assertThat(loanService.getById(loan.getId())).isPresent();
+        assertPrimaryOnly();
+
+        //@ReplicaRead DENTRO DE UMA TRANSACAO DE ESCRITA: PARTICIPA DELA E FICA NO PRINCIPAL
+        clearPools();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                assertThat(loanService.find(filter, PageRequest.of(0, 10)).getTotalElements()).isEqualTo(1));
+        assertPrimaryOnly();
+    }
+
+    private void clearPools(){
+        Mockito.clearInvocations(primaryDataSource, replicaDataSource);
+    }
+
+    private void assertPrimaryOnly() throws SQLException{
+        Mockito.verify(primaryDataSource, Mockito.atLeastOnce()).getConnection();
+        Mockito.verify(replicaDataSource, Mockito.never()).getConnection();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.libraryapi.config;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import com.example.libraryapi.service.BookService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class SecondLevelCacheTest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    LoanRepository loanRepository;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    MeterRegistry registry;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void setUp(){
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("O cache de segundo nivel deve refletir o update e o delete do livro")
+    public void bookCacheCoherenceTest(){
+        //CENARIO
+        Book book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("l2-123").build());
+        statistics.clear();
+
+        //EXECUCAO E VERIFICACAO: LEITURAS SEM SQL DEPOIS DO INSERT
+        assertThat(bookRepository.findById(book.getId())).isPresent();
+        assertThat(bookRepository.findByIsbn("l2-123")).isPresent();
+        assertThat(bookRepository.findByIsbn("l2-123")).isPresent();
+        assertThat(statistics.getDomainDataRegionStatistics(Book.CACHE_REGION).getHitCount()).isGreaterThanOrEqualTo(1);
+        assertThat(statistics.getQueryRegionStatistics(BookRepository.ISBN_CACHE_REGION).getHitCount()).isEqualTo(1);
+
+        //UPDATE: A REGIAO PASSA A TER A NOVA VERSAO E A CONSULTA POR ISBN E INVALIDADA
+        Book changed = bookService.getById(book.getId()).get();
+        changed.setTitle("Novo Titulo");
+        bookService.update(changed);
+        Book reloaded = bookRepository.findById(book.getId()).get();
+        assertThat(reloaded.getTitle()).isEqualTo("Novo Titulo");
+        assertThat(reloaded.getVersion()).isEqualTo(1L);
+        assertThat(bookRepository.findByIsbn("l2-123").get().getTitle()).isEqualTo("Novo Titulo");
+
+        //DELETE: NEM A ENTIDADE NEM A CONSULTA DEVOLVEM O LIVRO REMOVIDO
+        bookService.delete(reloaded);
+        assertThat(bookRepository.findById(book.getId())).isEmpty();
+        assertThat(bookRepository.findByIsbn("l2-123")).isEmpty();
+        assertThat(registry.find("hibernate.second.level.cache.requests").tag("region", Book.CACHE_REGION).meters())
+                .isNotEmpty();
+    }
+}
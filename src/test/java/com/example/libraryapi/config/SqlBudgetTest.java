@@ -0,0 +1,174 @@
+package com.example.libraryapi.config;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*EXERCITA CADA ENDPOINT COM VARIOS EMPRESTIMOS NO BANCO E PAGINAS CHEIAS (PARA INCLUIR O COUNT). O PROFILE test LIGA library.sql.budget.enforce,
+ENTAO QUALQUER REQUISICAO ACIMA DO @SqlBudget DECLARADO FALHA AQUI*/
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class SqlBudgetTest {
+
+    private static final int LOANS_PER_BOOK = 5;
+
+    @Autowired
+    MockMvc mvc;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    LoanRepository loanRepository;
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    RequestMappingHandlerMapping handlerMapping;
+
+    Book book;
+    Book freeBook;
+    Loan activeLoan;
+
+    @BeforeEach
+    public void setUp(){
+        book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("budget-1").build());
+        freeBook = bookRepository.save(Book.builder().title("Outro Livro").author("Ciclano").isbn("budget-2").build());
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < LOANS_PER_BOOK; i++) {
+            loans.add(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now().minusDays(i))
+                    .returned(i > 0).build());
+        }
+        loanRepository.saveAll(loans);
+        activeLoan = loans.get(0);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Todo endpoint da API deve declarar um limite de comandos SQL ou a isencao explicita")
+    public void everyEndpointDeclaresBudgetTest(){
+        for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+            HandlerMethod handler = entry.getValue();
+            if (handler.getBeanType().getPackageName().startsWith("com.example.libraryapi.api")) {
+                assertThat(handler.hasMethodAnnotation(SqlBudget.class))
+                        .as(entry.getKey().toString())
+                        .isNotEqualTo(handler.hasMethodAnnotation(SqlBudgetExempt.class));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Endpoints de livros devem respeitar o limite de SQL")
+    public void bookEndpointsBudgetTest() throws Exception{
+        mvc.perform(post("/api/books").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Novo\",\"author\":\"Autor\",\"isbn\":\"budget-3\"}"))
+                .andExpect(status().isCreated());
+        mvc.perform(post("/api/books/import").contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"title\":\"A\",\"author\":\"B\",\"isbn\":\"budget-4\"}\n{\"title\":\"C\",\"author\":\"D\",\"isbn\":\"budget-1\"}\n"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/books/" + book.getId())).andExpect(status().isOk());
+        mvc.perform(post("/api/books/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + book.getId() + ", " + freeBook.getId() + ", 999999],\"isbns\":[\"budget-2\", \"nenhum\"]}"))
+                .andExpect(status().isOk());
+        String etag = mvc.perform(put("/api/books/" + book.getId()).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\":\"Novo titulo\",\"author\":\"Fulano\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(patch("/api/books/" + book.getId()).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"author\":\"Ciclano\"}"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/books").param("page", "0").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        streamNdjson(get("/api/books").param("author", "Ciclano"), 2);
+        mvc.perform(get("/api/books").param("available", "true").param("author", "Ciclano").param("size", "1"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/books").param("available", "false")).andExpect(status().isOk());
+        mvc.perform(get("/api/books").param("cursor", "").param("size", "10")).andExpect(status().isOk());
+        mvc.perform(get("/api/books/search").param("q", "aventuras")).andExpect(status().isOk());
+        mvc.perform(get("/api/books/" + book.getId() + "/loans").param("page", "0").param("size", "2"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/books/" + book.getId() + "/loans").param("cursor", "").param("size", "2"))
+                .andExpect(status().isOk());
+        streamNdjson(get("/api/books/" + book.getId() + "/loans"), LOANS_PER_BOOK);
+        mvc.perform(delete("/api/books/" + freeBook.getId())).andExpect(status().isNoContent());
+    }
+
+    @Test
+    @DisplayName("A importacao deve respeitar o limite de SQL em cada lote, qualquer que seja o tamanho do arquivo")
+    public void importBudgetPerChunkTest() throws Exception{
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 1200; i++) {
+            rows.append("{\"title\":\"T\",\"author\":\"A\",\"isbn\":\"chunk-").append(i).append("\"}\n");
+        }
+
+        mvc.perform(post("/api/books/import").contentType(MediaType.APPLICATION_NDJSON).content(rows.toString()))
+                .andExpect(status().isOk());
+
+        assertThat(bookRepository.count()).isEqualTo(1202);
+    }
+
+    @Test
+    @DisplayName("Endpoints de emprestimos devem respeitar o limite de SQL")
+    public void loanEndpointsBudgetTest() throws Exception{
+        mvc.perform(post("/api/loans").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"isbn\":\"budget-2\",\"customer\":\"Ciclano\"}"))
+                .andExpect(status().isCreated());
+        String etag = mvc.perform(get("/api/loans/" + activeLoan.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(patch("/api/loans/" + activeLoan.getId()).header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"returned\":true}"))
+                .andExpect(status().isOk());
+        mvc.perform(post("/api/loans/returns").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + activeLoan.getId() + ", 999999],\"isbns\":[\"budget-2\"]}"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/loans").param("customer", "Fulano").param("page", "0").param("size", "2"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/api/loans").param("isbn", "budget-1").param("cursor", "").param("size", "10"))
+                .andExpect(status().isOk());
+        streamNdjson(get("/api/loans").param("isbn", "budget-1"), LOANS_PER_BOOK);
+    }
+
+    /*AS CONSULTAS DO MODO STREAMING RODAM NO jdbcScheduler, DEPOIS QUE O CONTROLLER JA RETORNOU O Flux*/
+    private void streamNdjson(MockHttpServletRequestBuilder request, int lines) throws Exception{
+        MvcResult result = mvc.perform(request.accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body.lines()).hasSize(lines);
+    }
+}
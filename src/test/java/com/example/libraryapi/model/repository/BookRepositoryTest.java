@@ -1,17 +1,26 @@
 package com.example.libraryapi.model.repository;
 
 import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
 import com.example.libraryapi.model.repositoy.BookRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -80,6 +89,76 @@ public class BookRepositoryTest {
         assertThat(deletedBook).isNull();
     }
 
+    @Test
+    @DisplayName("Deve retornar apenas os isbns ja cadastrados em uma unica consulta")
+    public void findExistingIsbnsTest(){
+        //CENARIO
+        entityManager.persist(createNewBook("123"));
+        //EXECUCAO
+        Set<String> isbns = repository.findExistingIsbns(Arrays.asList("123", "456"));
+        //VERIFICACAO
+        assertThat(isbns).isEqualTo(Collections.singleton("123"));
+    }
+    @Test
+    @DisplayName("Deve buscar livros por uma lista de isbns em uma unica consulta")
+    public void findByIsbnInTest(){
+        //CENARIO
+        entityManager.persist(createNewBook("123"));
+        entityManager.persist(createNewBook("456"));
+        //EXECUCAO
+        List<Book> books = repository.findByIsbnIn(Arrays.asList("456", "123", "789"));
+        //VERIFICACAO
+        assertThat(books.stream().map(Book::getIsbn).collect(Collectors.toSet())).isEqualTo(Set.of("123", "456"));
+    }
+    @Test
+    @DisplayName("Deve inserir livros em lote")
+    public void insertAllTest(){
+        //CENARIO
+        Book book = createNewBook("123");
+        Book otherBook = createNewBook("456");
+        //EXECUCAO
+        repository.insertAll(Arrays.asList(book, otherBook));
+        //VERIFICACAO
+        assertThat(book.getId()).isNotNull();
+        assertThat(repository.existsByIsbn("456")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve buscar os livros depois do ultimo id aplicando os filtros")
+    public void findAfterTest(){
+        //CENARIO
+        Book first = createNewBook("123");
+        Book second = createNewBook("456");
+        Book other = Book.builder().author("Ciclano").title("Outro").isbn("789").build();
+        entityManager.persist(first);
+        entityManager.persist(second);
+        entityManager.persist(other);
+        //EXECUCAO
+        List<Book> books = repository.findAfter("aventuras", null, null, first.getId(), PageRequest.of(0, 10));
+        //VERIFICACAO
+        assertThat(books.size()).isEqualTo(1);
+        assertThat(books.get(0).getId()).isEqualTo(second.getId());
+    }
+
+    @Test
+    @DisplayName("Deve separar livros disponiveis e emprestados pelo banco, com o filtro de titulo")
+    public void findAvailableAndLoanedTest(){
+        //CENARIO
+        Book free = entityManager.persist(createNewBook("av-1"));
+        Book loaned = entityManager.persist(createNewBook("av-2"));
+        entityManager.persist(Loan.builder().book(loaned).customer("Fulano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+
+        //EXECUCAO
+        Page<Book> available = repository.findAvailable("aventuras", null, null, PageRequest.of(0, 10));
+        Page<Book> loanedBooks = repository.findLoaned(null, null, null, PageRequest.of(0, 10));
+
+        //VERIFICACAO
+        assertThat(available.getContent()).isEqualTo(Collections.singletonList(free));
+        assertThat(available.getTotalElements()).isEqualTo(1L);
+        assertThat(loanedBooks.getContent()).isEqualTo(Collections.singletonList(loaned));
+    }
+
     public static Book createNewBook(String isbn) {
         return Book.builder()
                 .author("Fulano")
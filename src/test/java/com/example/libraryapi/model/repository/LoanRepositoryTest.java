@@ -2,6 +2,7 @@ package com.example.libraryapi.model.repository;
 
 import com.example.libraryapi.model.entity.Book;
 import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
 import com.example.libraryapi.model.repositoy.LoanRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,15 +10,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.example.libraryapi.model.repository.BookRepositoryTest.createNewBook;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
@@ -61,6 +69,186 @@ public class LoanRepositoryTest {
 
     }
 
+    @Test
+    @DisplayName("Deve buscar a projecao do emprestimo com os dados do livro")
+    public void searchSummariesTest(){
+        //CENARIO
+        Loan loan = createAndPersistLoan();
+        entityManager.clear();
+
+        //EXECUCAO
+        Page<LoanSummary> result = repository.searchSummaries("123", "Fulano", PageRequest.of(0, 10));
+
+        //VERIFICACAO
+        assertThat(result.getTotalElements()).isEqualTo(1);
+        assertThat(result.getContent().get(0).getId()).isEqualTo(loan.getId());
+        assertThat(result.getContent().get(0).getIsbn()).isEqualTo("123");
+        assertThat(result.getContent().get(0).getTitle()).isEqualTo("As Aventuras");
+    }
+
+    @Test
+    @DisplayName("Deve aplicar a ordem decrescente por id na pagina de emprestimos")
+    public void searchSummariesSortedTest(){
+        //CENARIO
+        Loan first = createAndPersistLoan();
+        Book otherBook = createNewBook("456");
+        entityManager.persist(otherBook);
+        Loan second = Loan.builder().book(otherBook).customer("Fulano").loanDate(LocalDate.now()).build();
+        entityManager.persist(second);
+
+        //EXECUCAO
+        Page<LoanSummary> result = repository.searchSummaries("123", "Fulano",
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "id")));
+
+        //VERIFICACAO
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).hasSize(1);
+        assertThat(result.getContent().get(0).getId()).isEqualTo(second.getId());
+        assertThat(repository.findByBookIsbnOrCustomer("123", "Fulano",
+                PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "id"))).getContent()).containsExactly(first);
+    }
+
+    @Test
+    @DisplayName("Deve ordenar a pagina de emprestimos por data e por cliente, desempatando por id")
+    public void searchSummariesSortedByLoanDateAndCustomerTest(){
+        //CENARIO
+        Loan today = createAndPersistLoan();
+        Book otherBook = createNewBook("456");
+        entityManager.persist(otherBook);
+        Loan older = Loan.builder().book(otherBook).customer("Fulano").loanDate(LocalDate.now().minusDays(3)).build();
+        entityManager.persist(older);
+        Book thirdBook = createNewBook("789");
+        entityManager.persist(thirdBook);
+        Loan sameDay = Loan.builder().book(thirdBook).customer("Fulano").loanDate(LocalDate.now()).build();
+        entityManager.persist(sameDay);
+
+        //EXECUCAO
+        Page<LoanSummary> byDate = repository.searchSummaries("123", "Fulano",
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "loanDate")));
+        Page<LoanSummary> byCustomer = repository.searchSummaries("123", "Fulano",
+                PageRequest.of(1, 2, Sort.by("customer")));
+
+        //VERIFICACAO
+        assertThat(byDate.getContent().stream().map(LoanSummary::getId).collect(Collectors.toList()))
+                .containsExactly(sameDay.getId(), today.getId(), older.getId());
+        assertThat(byCustomer.getTotalElements()).isEqualTo(3);
+        assertThat(byCustomer.getContent().stream().map(LoanSummary::getId).collect(Collectors.toList()))
+                .containsExactly(sameDay.getId());
+        assertThat(repository.findByBookIsbnOrCustomer("123", "Fulano",
+                PageRequest.of(0, 2, Sort.by("loanDate"))).getContent()).containsExactly(older, today);
+    }
+
+    @Test
+    @DisplayName("Deve buscar apenas os emprestimos depois do ultimo id informado")
+    public void searchSummariesAfterTest(){
+        //CENARIO
+        Loan first = createAndPersistLoan();
+        Book otherBook = createNewBook("456");
+        entityManager.persist(otherBook);
+        Loan second = Loan.builder().book(otherBook).customer("Fulano").loanDate(LocalDate.now()).build();
+        entityManager.persist(second);
+
+        //EXECUCAO
+        List<LoanSummary> result = repository.searchSummariesAfter("123", "Fulano", first.getId(), PageRequest.of(0, 10));
+
+        //VERIFICACAO
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getId()).isEqualTo(second.getId());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar um segundo emprestimo ativo para o mesmo livro")
+    public void rejectSecondActiveLoanTest(){
+        //CENARIO
+        Loan loan = createAndPersistLoan();
+        Loan second = Loan.builder().book(loan.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build();
+
+        //EXECUCAO
+        Throwable exception = catchThrowable(() -> repository.saveAndFlush(second));
+
+        //VERIFICACAO
+        assertThat(exception).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    @DisplayName("Deve ler por stream apenas os emprestimos ativos vencidos")
+    public void streamOverdueTest(){
+        //CENARIO
+        Book late = createNewBook("111");
+        Book returned = createNewBook("222");
+        Book recent = createNewBook("333");
+        entityManager.persist(late);
+        entityManager.persist(returned);
+        entityManager.persist(recent);
+        Loan overdue = Loan.builder().book(late).customer("Fulano").loanDate(LocalDate.now().minusDays(10)).build();
+        entityManager.persist(overdue);
+        entityManager.persist(Loan.builder().book(returned).customer("Fulano")
+                .loanDate(LocalDate.now().minusDays(10)).returned(true).build());
+        entityManager.persist(Loan.builder().book(recent).customer("Fulano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+
+        //EXECUCAO
+        List<LoanSummary> result;
+        try (Stream<LoanSummary> stream = repository.streamOverdue(LocalDate.now().minusDays(4))) {
+            result = stream.collect(Collectors.toList());
+        }
+
+        //VERIFICACAO
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getId()).isEqualTo(overdue.getId());
+        assertThat(result.get(0).getIsbn()).isEqualTo("111");
+    }
+
+    @Test
+    @DisplayName("Deve buscar o historico de emprestimos do livro em uma projecao")
+    public void findSummariesByBookIdTest(){
+        //CENARIO
+        Loan first = createAndPersistLoan();
+        first.setReturned(true);
+        entityManager.flush();
+        Loan second = Loan.builder().book(first.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build();
+        entityManager.persist(second);
+        Book otherBook = createNewBook("456");
+        entityManager.persist(otherBook);
+        entityManager.persist(Loan.builder().book(otherBook).customer("Fulano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        entityManager.clear();
+
+        //EXECUCAO
+        Page<LoanSummary> page = repository.findSummariesByBookId(first.getBook().getId(), PageRequest.of(0, 10));
+        List<LoanSummary> after = repository.findSummariesByBookIdAfter(first.getBook().getId(), first.getId(),
+                PageRequest.of(0, 10));
+
+        //VERIFICACAO
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent().get(0).getCustomer()).isEqualTo("Fulano");
+        assertThat(page.getContent().get(0).getIsbn()).isEqualTo("123");
+        assertThat(after).hasSize(1);
+        assertThat(after.get(0).getId()).isEqualTo(second.getId());
+        assertThat(after.get(0).getCustomer()).isEqualTo("Ciclano");
+    }
+
+    @Test
+    @DisplayName("Deve marcar emprestimos como devolvidos em um unico update e liberar o livro")
+    public void markReturnedTest(){
+        //CENARIO
+        Loan loan = createAndPersistLoan();
+        entityManager.flush();
+
+        //EXECUCAO
+        int updated = repository.markReturned(Arrays.asList(loan.getId()));
+        int again = repository.markReturned(Arrays.asList(loan.getId()));
+
+        //VERIFICACAO
+        assertThat(updated).isEqualTo(1);
+        assertThat(again).isEqualTo(0);
+        Loan reloaded = entityManager.find(Loan.class, loan.getId());
+        assertThat(reloaded.getReturned()).isTrue();
+        assertThat(reloaded.getActiveBookId()).isNull();
+        assertThat(repository.existsByBookAndNotReturned(loan.getBook())).isFalse();
+        repository.saveAndFlush(Loan.builder().book(reloaded.getBook()).customer("Ciclano").loanDate(LocalDate.now()).build());
+    }
+
     public Loan createAndPersistLoan(){
         Book book = createNewBook("123");
         entityManager.persist(book);
@@ -0,0 +1,152 @@
+package com.example.libraryapi.model.repository;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.example.libraryapi.model.repository.BookRepositoryTest.createNewBook;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*EXECUTA CADA METODO DE REPOSITORIO, CAPTURA O SQL GERADO PELO HIBERNATE E VERIFICA NO EXPLAIN DO H2
+QUE NENHUMA TABELA E LIDA POR tableScan*/
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.libraryapi.model.repository.QueryPlanTest$CapturingStatementInspector")
+public class QueryPlanTest {
+
+    @Autowired
+    TestEntityManager entityManager;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    LoanRepository loanRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Book book;
+
+    @BeforeEach
+    public void setUp(){
+        book = createNewBook("123");
+        entityManager.persist(book);
+        entityManager.persist(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        entityManager.flush();
+        entityManager.clear();
+        CapturingStatementInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    @DisplayName("existsByIsbn deve usar o indice de isbn")
+    public void existsByIsbnPlanTest(){
+        bookRepository.existsByIsbn("123");
+        assertNoTableScan();
+    }
+
+    @Test
+    @DisplayName("findByIsbn deve usar o indice de isbn")
+    public void findByIsbnPlanTest(){
+        bookRepository.findByIsbn("123");
+        assertNoTableScan();
+    }
+
+    @Test
+    @DisplayName("findExistingIsbns deve usar o indice de isbn")
+    public void findExistingIsbnsPlanTest(){
+        bookRepository.findExistingIsbns(Arrays.asList("123", "456"));
+        assertNoTableScan();
+    }
+
+    @Test
+    @DisplayName("existsByBookAndNotReturned deve usar o indice de livro do emprestimo")
+    public void existsByBookAndNotReturnedPlanTest(){
+        loanRepository.existsByBookAndNotReturned(book);
+        assertNoTableScan();
+    }
+
+    @Test
+    @DisplayName("findByBookIsbnOrCustomer deve usar os indices de isbn e de cliente")
+    public void findByBookIsbnOrCustomerPlanTest(){
+        loanRepository.findByBookIsbnOrCustomer("123", "Fulano", PageRequest.of(0, 10));
+        assertNoTableScan();
+    }
+
+    @Test
+    @DisplayName("searchSummaries deve usar os indices de isbn e de cliente")
+    public void searchSummariesPlanTest(){
+        loanRepository.searchSummaries("123", "Fulano", PageRequest.of(0, 10));
+        assertNoTableScan();
+    }
+
+    @Test
+    @DisplayName("streamOverdue deve usar o indice de data dos emprestimos ativos")
+    public void streamOverduePlanTest(){
+        try (Stream<LoanSummary> stream = loanRepository.streamOverdue(LocalDate.now())) {
+            stream.forEach(loan -> { });
+        }
+        assertNoTableScan();
+    }
+
+    @Test
+    @DisplayName("findSummariesByBookId deve usar o indice de historico do livro")
+    public void findSummariesByBookIdPlanTest(){
+        loanRepository.findSummariesByBookId(book.getId(), PageRequest.of(0, 10));
+        loanRepository.findSummariesByBookIdAfter(book.getId(), 0L, PageRequest.of(0, 10));
+        assertNoTableScan();
+    }
+
+    private void assertNoTableScan(){
+        List<String> statements = new ArrayList<>(CapturingStatementInspector.STATEMENTS);
+        assertThat(statements).isNotEmpty();
+        for (String sql : statements) {
+            Object[] params = new Object[countParameters(sql)];
+            Arrays.fill(params, "1");
+            String plan = String.join("\n", jdbcTemplate.queryForList("explain " + sql, String.class, params));
+            assertThat(plan).as(plan).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    private static int countParameters(String sql){
+        int count = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.trim().toLowerCase().startsWith("select")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
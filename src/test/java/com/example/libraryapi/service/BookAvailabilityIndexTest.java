@@ -0,0 +1,115 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.service.impl.BookAvailabilityIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookAvailabilityIndexTest {
+
+    BookAvailabilityIndex index;
+
+    @BeforeEach
+    public void setUp(){
+        index = new BookAvailabilityIndex();
+        index.load(LongStream.rangeClosed(1, 10).boxed(), Stream.of(2L, 5L));
+    }
+
+    @Test
+    @DisplayName("Deve paginar os livros disponiveis em ordem de id com o total do indice")
+    public void availablePageTest(){
+        BookAvailabilityIndex.IdPage first = index.page(null, true, 0, 3);
+        BookAvailabilityIndex.IdPage second = index.page(null, true, 3, 3);
+        BookAvailabilityIndex.IdPage last = index.page(null, true, 6, 3);
+
+        assertThat(first.getIds()).containsExactly(1L, 3L, 4L);
+        assertThat(second.getIds()).containsExactly(6L, 7L, 8L);
+        assertThat(last.getIds()).containsExactly(9L, 10L);
+        assertThat(first.getTotal()).isEqualTo(8);
+        assertThat(index.page(null, true, 8, 3).getIds()).isEmpty();
+        assertThat(index.page(null, false, 0, 10).getIds()).containsExactly(2L, 5L);
+    }
+
+    @Test
+    @DisplayName("Deve cruzar os candidatos do filtro com os disponiveis")
+    public void candidatesTest(){
+        RoaringBitmap candidates = RoaringBitmap.bitmapOf(1, 2, 3, 5, 42);
+
+        BookAvailabilityIndex.IdPage available = index.page(candidates, true, 0, 10);
+        BookAvailabilityIndex.IdPage loaned = index.page(candidates, false, 0, 10);
+
+        assertThat(available.getIds()).containsExactly(1L, 3L);
+        assertThat(available.getTotal()).isEqualTo(2);
+        assertThat(loaned.getIds()).containsExactly(2L, 5L);
+    }
+
+    @Test
+    @DisplayName("Deve refletir emprestimo, devolucao, cadastro e exclusao de livros")
+    public void changesTest(){
+        index.loaned(1L);
+        index.returned(List.of(2L, 5L));
+        index.added(11L);
+        index.removed(3L);
+
+        assertThat(index.page(null, true, 0, 20).getIds()).containsExactly(2L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L);
+        assertThat(index.page(null, false, 0, 20).getIds()).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Deve reaplicar as alteracoes confirmadas enquanto a carga lia o banco")
+    public void changeDuringLoadTest(){
+        //EXECUCAO: O LIVRO 3 E EMPRESTADO DEPOIS QUE A CONSULTA DE EMPRESTADOS JA FOI LIDA
+        index.load(LongStream.rangeClosed(1, 10).boxed().peek(id -> {
+            if (id == 10) {
+                index.loaned(3L);
+            }
+        }), Stream.of(2L, 5L));
+
+        //VERIFICACAO
+        assertThat(index.page(null, false, 0, 20).getIds()).containsExactly(2L, 3L, 5L);
+        assertThat(index.page(null, true, 0, 20).getIds()).doesNotContain(3L);
+    }
+
+    @Test
+    @DisplayName("Deve identificar a carga do indice por instancia e por recarga")
+    public void generationTest(){
+        String loaded = index.generation();
+
+        index.load(LongStream.rangeClosed(1, 10).boxed(), Stream.of(2L));
+        BookAvailabilityIndex restarted = new BookAvailabilityIndex();
+        restarted.load(LongStream.rangeClosed(1, 10).boxed(), Stream.of(2L, 5L));
+
+        assertThat(index.generation()).isNotEqualTo(loaded);
+        assertThat(restarted.generation()).isNotEqualTo(loaded);
+    }
+
+    @Test
+    @DisplayName("Deve se desligar quando um id nao couber em int")
+    public void overflowTest(){
+        assertThat(index.overflow()).isFalse();
+
+        index.added((long) Integer.MAX_VALUE + 1);
+
+        assertThat(index.overflow()).isTrue();
+        BookAvailabilityIndex reloaded = new BookAvailabilityIndex();
+        reloaded.load(Stream.of(1L, (long) Integer.MAX_VALUE + 1), Stream.empty());
+        assertThat(reloaded.overflow()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Nao deve tornar disponivel um livro excluido ou que nao estava emprestado")
+    public void returnUnknownBookTest(){
+        index.removed(2L);
+        index.returned(List.of(2L, 99L));
+
+        assertThat(index.page(null, true, 0, 20).getIds()).doesNotContain(2L, 99L);
+        assertThat(index.page(null, false, 0, 20).getIds()).containsExactly(5L);
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*O INDICE E ATUALIZADO DEPOIS DO COMMIT: CADA ESCRITA AQUI RODA NA PROPRIA TRANSACAO DO SERVICO OU DO REPOSITORIO*/
+@SpringBootTest
+@ActiveProfiles("test")
+public class BookAvailabilityServiceTest {
+
+    @Autowired
+    BookAvailabilityService availabilityService;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    LoanService loanService;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    LoanRepository loanRepository;
+
+    List<Book> books;
+
+    @BeforeEach
+    public void setUp(){
+        books = bookRepository.saveAll(Arrays.asList(
+                Book.builder().title("As Aventuras").author("Fulano").isbn("av-1").build(),
+                Book.builder().title("Outras Aventuras").author("Fulano").isbn("av-2").build(),
+                Book.builder().title("Dom Casmurro").author("Machado").isbn("av-3").build()));
+    }
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+        availabilityService.rebuild();
+    }
+
+    @Test
+    @DisplayName("Deve tirar o livro emprestado dos disponiveis e devolve-lo na devolucao")
+    public void loanAndReturnTest(){
+        //CENARIO
+        Loan loan = loanService.save(Loan.builder().book(books.get(0)).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        //VERIFICACAO
+        assertThat(ids(find(new Book(), true))).containsExactly(books.get(1).getId(), books.get(2).getId());
+        assertThat(ids(find(new Book(), false))).containsExactly(books.get(0).getId());
+
+        //EXECUCAO
+        loan.setReturned(true);
+        loanService.update(loan);
+
+        //VERIFICACAO
+        assertThat(ids(find(new Book(), true))).hasSize(3);
+        assertThat(find(new Book(), false).getTotalElements()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve combinar a disponibilidade com o filtro de titulo e refletir a devolucao em massa")
+    public void filterAndBulkReturnTest(){
+        //CENARIO
+        loanService.save(Loan.builder().book(books.get(0)).customer("Fulano").loanDate(LocalDate.now()).build());
+        loanService.save(Loan.builder().book(books.get(2)).customer("Fulano").loanDate(LocalDate.now()).build());
+        Book filter = Book.builder().title("aventuras").build();
+
+        //VERIFICACAO
+        Page<Book> available = find(filter, true);
+        assertThat(ids(available)).containsExactly(books.get(1).getId());
+        assertThat(available.getContent().get(0).getTitle()).isEqualTo("Outras Aventuras");
+        assertThat(find(filter, false).getTotalElements()).isEqualTo(1);
+
+        //EXECUCAO
+        loanService.returnAll(List.of(), Arrays.asList("av-1", "av-3"));
+
+        //VERIFICACAO
+        assertThat(find(filter, true).getTotalElements()).isEqualTo(2);
+        assertThat(find(new Book(), true).getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve incluir livros cadastrados e retirar livros excluidos")
+    public void addAndDeleteBookTest(){
+        Book saved = bookService.save(Book.builder().title("Novo").author("Autor").isbn("av-4").build());
+        bookService.delete(books.get(2));
+
+        assertThat(ids(find(new Book(), true)))
+                .containsExactly(books.get(0).getId(), books.get(1).getId(), saved.getId());
+    }
+
+    @Test
+    @DisplayName("Deve recarregar o indice a partir do banco")
+    public void rebuildTest(){
+        loanRepository.save(Loan.builder().book(books.get(1)).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        availabilityService.rebuild();
+
+        assertThat(ids(find(new Book(), false))).containsExactly(books.get(1).getId());
+        assertThat(find(new Book(), true).getTotalElements()).isEqualTo(2);
+    }
+
+    private Page<Book> find(Book filter, boolean available){
+        return availabilityService.find(filter, available, PageRequest.of(0, 10));
+    }
+
+    private static List<Long> ids(Page<Book> page){
+        return page.map(Book::getId).getContent();
+    }
+}
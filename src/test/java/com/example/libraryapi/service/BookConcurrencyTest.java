@@ -0,0 +1,121 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.exception.BusinessException;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class BookConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BookConcurrencyTest.class);
+    private static final int THREADS = 8;
+    private static final int UPDATES_PER_THREAD = 25;
+
+    @Autowired
+    BookService bookService;
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown(){
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Nao deve perder atualizacoes com varias threads lendo e alterando o mesmo livro")
+    public void noLostUpdatesTest() throws Exception{
+        //CENARIO: O TITULO E UM CONTADOR; CADA THREAD LE, SOMA 1 E GRAVA, REPETINDO QUANDO O @Version REJEITA
+        Book book = bookRepository.save(Book.builder().title("0").author("Fulano").isbn("counter-123").build());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger conflicts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    while (true) {
+                        Book current = bookService.getById(book.getId()).get();
+                        current.setTitle(String.valueOf(Integer.parseInt(current.getTitle()) + 1));
+                        try {
+                            bookService.update(current);
+                            break;
+                        } catch (OptimisticLockingFailureException e) {
+                            conflicts.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        //EXECUCAO
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //VERIFICACAO
+        int updates = THREADS * UPDATES_PER_THREAD;
+        log.info("{} atualizacoes concorrentes do mesmo livro com {} conflitos repetidos", updates, conflicts.get());
+        Book result = bookRepository.findById(book.getId()).get();
+        assertThat(result.getTitle()).isEqualTo(String.valueOf(updates));
+        assertThat(result.getVersion()).isEqualTo(updates);
+    }
+
+    @Test
+    @DisplayName("Deve cadastrar o isbn uma unica vez com varias threads salvando o mesmo livro")
+    public void onlyOneBookPerIsbnUnderContentionTest() throws Exception{
+        //CENARIO
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    bookService.save(Book.builder().title("As Aventuras " + thread).author("Fulano").isbn("race-123").build());
+                    created.incrementAndGet();
+                } catch (BusinessException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        //EXECUCAO
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //VERIFICACAO
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(THREADS - 1);
+        assertThat(bookRepository.count()).isEqualTo(1);
+    }
+}
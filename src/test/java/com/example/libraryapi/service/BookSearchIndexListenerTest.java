@@ -0,0 +1,73 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.service.impl.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*O INDICE DE BUSCA SO RECEBE AS ESCRITAS CONFIRMADAS: CADA CENARIO ABRE A PROPRIA TRANSACAO E A DESFAZ*/
+@SpringBootTest
+@ActiveProfiles("test")
+public class BookSearchIndexListenerTest {
+
+    @Autowired
+    BookSearchIndex index;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transaction;
+
+    @BeforeEach
+    public void setUp(){
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Nao deve indexar um livro cujo cadastro foi desfeito nem antes do commit")
+    public void rolledBackInsertTest(){
+        transaction.executeWithoutResult(status -> {
+            bookRepository.saveAndFlush(Book.builder().title("Zanzibar").author("Fulano").isbn("search-1").build());
+            assertThat(index.search("zanzibar", 10)).isEmpty();
+            status.setRollbackOnly();
+        });
+
+        assertThat(index.search("zanzibar", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve manter o documento anterior quando a alteracao for desfeita")
+    public void rolledBackUpdateTest(){
+        //CENARIO
+        Book book = bookRepository.save(Book.builder().title("Zanzibar").author("Fulano").isbn("search-2").build());
+        assertThat(index.search("zanzibar", 10)).containsExactly(book.getId());
+
+        //EXECUCAO
+        transaction.executeWithoutResult(status -> {
+            Book loaded = bookRepository.findById(book.getId()).get();
+            loaded.setTitle("Quixote");
+            bookRepository.saveAndFlush(loaded);
+            status.setRollbackOnly();
+        });
+
+        //VERIFICACAO
+        assertThat(index.search("quixote", 10)).isEmpty();
+        assertThat(index.search("zanzibar", 10)).containsExactly(book.getId());
+    }
+}
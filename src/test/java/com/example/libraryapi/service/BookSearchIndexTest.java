@@ -0,0 +1,111 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.impl.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BookSearchIndexTest {
+
+    BookSearchIndex index;
+
+    @BeforeEach
+    public void setUp(){
+        index = new BookSearchIndex();
+        index.index(Book.builder().id(1L).title("As Aventuras de Artur").author("Fulano").build());
+        index.index(Book.builder().id(2L).title("Dom Casmurro").author("Machado de Assis").build());
+        index.index(Book.builder().id(3L).title("Memorias Postumas").author("Machado de Assis").build());
+        index.index(Book.builder().id(4L).title("Machado, uma biografia").author("Ciclano").build());
+    }
+
+    @Test
+    @DisplayName("Deve ordenar por relevancia dando mais peso ao titulo")
+    public void rankingTest(){
+        List<Long> ids = index.search("machado", 10);
+
+        assertThat(ids).containsExactly(4L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Deve casar por prefixo, sem acento e com todos os termos")
+    public void prefixAndAllTermsTest(){
+        assertThat(index.search("aventu", 10)).containsExactly(1L);
+        assertThat(index.search("MEMÓRIAS mach", 10)).containsExactly(3L);
+        assertThat(index.search("memorias fulano", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve tolerar um erro de digitacao")
+    public void fuzzyTest(){
+        assertThat(index.search("casmuro", 10)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualizacoes e remocoes")
+    public void updateAndRemoveTest(){
+        index.index(Book.builder().id(2L).title("Quincas Borba").author("Machado de Assis").build());
+        index.remove(3L);
+
+        assertThat(index.search("casmurro", 10)).isEmpty();
+        assertThat(index.search("quincas", 10)).containsExactly(2L);
+        assertThat(index.search("memorias", 10)).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve casar termos curtos so de forma exata")
+    public void shortPrefixTest(){
+        index.index(Book.builder().id(5L).title("Do Mar").author("Beltrano").build());
+
+        assertThat(index.search("do", 10)).containsExactly(5L);
+        assertThat(index.search("ma", 10)).isEmpty();
+        assertThat(index.search("mac", 10)).containsExactlyInAnyOrder(2L, 3L, 4L);
+    }
+
+    @Test
+    @DisplayName("Deve limitar os termos expandidos por prefixo")
+    public void prefixExpansionLimitTest(){
+        //CENARIO: 74 TERMOS COM O MESMO PREFIXO, 10 ALEM DE BookSearchIndex.MAX_PREFIX_TERMS (64)
+        for (int i = 0; i < 74; i++) {
+            index.index(Book.builder().id(100L + i).title(String.format("zeta%03d", i)).author("Beltrano").build());
+        }
+
+        assertThat(index.search("zeta", 1000)).hasSize(64);
+        assertThat(index.search("zeta073", 1)).containsExactly(173L);
+    }
+
+    @Test
+    @DisplayName("Deve tolerar troca, falta e sobra de uma letra pelo indice de delecoes")
+    public void fuzzyNeighbourhoodTest(){
+        assertThat(index.search("casmurto", 10)).containsExactly(2L);
+        assertThat(index.search("casmurrro", 10)).containsExactly(2L);
+        assertThat(index.search("cazmuro", 10)).isEmpty();
+
+        index.remove(2L);
+
+        assertThat(index.search("casmuro", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Deve trocar o indice na carga, descartando livros removidos e mantendo as alteracoes feitas durante ela")
+    public void loadTest(){
+        String before = index.generation();
+
+        index.load(sink -> {
+            sink.accept(Book.builder().id(2L).title("Dom Casmurro").author("Machado de Assis").build());
+            index.index(Book.builder().id(9L).title("Quincas Borba").author("Machado de Assis").build());
+            index.remove(2L);
+        });
+
+        assertThat(index.search("aventuras", 10)).isEmpty();
+        assertThat(index.search("casmurro", 10)).isEmpty();
+        assertThat(index.search("quincas", 10)).containsExactly(9L);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.generation()).isNotEqualTo(before);
+    }
+}
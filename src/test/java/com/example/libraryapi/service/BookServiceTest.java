@@ -1,5 +1,6 @@
 package com.example.libraryapi.service;
 
+import com.example.libraryapi.api.dto.BookImportResultDTO;
 import com.example.libraryapi.exception.BusinessException;
 import com.example.libraryapi.model.entity.Book;
 import com.example.libraryapi.model.repositoy.BookRepository;
@@ -11,6 +12,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -18,8 +20,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -42,9 +47,8 @@ public class BookServiceTest {
     public void saveBookTest(){
         //CENARIO
         Book book = createValidBook();
-        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(false);
 
-        when(repository.save(book)).thenReturn(Book.builder()
+        when(repository.saveAndFlush(book)).thenReturn(Book.builder()
                 .id(1L)
                 .author("Fulano")
                 .title("As Aventuras")
@@ -65,7 +69,8 @@ public class BookServiceTest {
     public void shoulNotSaveABookWithIsbnDuplicateISBNTest(){
         //CENARIO
         Book book = createValidBook();
-        when(repository.existsByIsbn(Mockito.anyString())).thenReturn(true);
+        when(repository.saveAndFlush(book)).thenThrow(new DataIntegrityViolationException(
+                "Unique index or primary key violation: UK_BOOK_ISBN"));
 
         //EXECUCAO
         Throwable exception = Assertions.catchThrowable(() ->service.save(book));
@@ -75,7 +80,21 @@ public class BookServiceTest {
                 .isInstanceOf(BusinessException.class)
                 .hasMessage("Isbn ja cadastrado.");
 
-        Mockito.verify(repository, Mockito.never()).save(book);
+        Mockito.verify(repository, Mockito.never()).existsByIsbn(Mockito.anyString());
+    }
+    @Test
+    @DisplayName("Deve repassar violacoes de integridade que nao sejam do isbn")
+    public void saveOtherIntegrityViolationTest(){
+        //CENARIO
+        Book book = createValidBook();
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("NULL not allowed for column TITLE");
+        when(repository.saveAndFlush(book)).thenThrow(violation);
+
+        //EXECUCAO
+        Throwable exception = Assertions.catchThrowable(() ->service.save(book));
+
+        //VERIFICACAO
+        assertThat(exception).isSameAs(violation);
     }
     @Test
     @DisplayName("Deve obter um livro por Id")
@@ -200,6 +219,104 @@ public class BookServiceTest {
 
 
     }
+    @Test
+    @DisplayName("Deve buscar livros por ids em lotes de 500 chaves distintas")
+    public void getByIdsChunksTest(){
+        //CENARIO
+        List<Long> ids = new ArrayList<>();
+        for (long id = 1; id <= 1200; id++) {
+            ids.add(id);
+        }
+        ids.add(1L);
+        when(repository.findAllById(Mockito.anyIterable())).thenReturn(Collections.emptyList());
+        when(repository.findAllById(ids.subList(0, 500))).thenReturn(Arrays.asList(createBookWithId(1L)));
+
+        //EXECUCAO
+        Map<Long, Book> books = service.getByIds(ids);
+
+        //VERIFICACAO
+        assertThat(books).containsOnlyKeys(1L);
+        verify(repository, times(3)).findAllById(Mockito.anyIterable());
+        verify(repository).findAllById(ids.subList(1000, 1200));
+    }
+
+    @Test
+    @DisplayName("Deve buscar livros por isbns indexados pelo isbn")
+    public void getByIsbnsTest(){
+        //CENARIO
+        Book book = createBookWithId(1L);
+        when(repository.findByIsbnIn(Arrays.asList("123", "999"))).thenReturn(Arrays.asList(book));
+
+        //EXECUCAO
+        Map<String, Book> books = service.getByIsbns(Arrays.asList("123", "999", "123"));
+
+        //VERIFICACAO
+        assertThat(books).containsOnlyKeys("123");
+        assertThat(books.get("123")).isSameAs(book);
+    }
+
+    private static Book createBookWithId(Long id){
+        return Book.builder().id(id).author("Fulano").title("As Aventuras").isbn("123").build();
+    }
+
+    @Test
+    @DisplayName("Deve salvar livros em lote ignorando isbns ja cadastrados ou repetidos")
+    public void saveAllBooksTest(){
+        //CENARIO
+        Book newBook = Book.builder().isbn("1").build();
+        Book existingBook = Book.builder().isbn("2").build();
+        Book repeatedBook = Book.builder().isbn("1").build();
+        when(repository.findExistingIsbns(Mockito.anyCollection()))
+                .thenReturn(Collections.singleton("2"));
+        when(repository.insertAll(Mockito.anyList())).then(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            books.forEach(book -> book.setId(10L));
+            return books;
+        });
+
+        //EXECUCAO
+        List<BookImportResultDTO> results = service.saveAll(Arrays.asList(newBook, existingBook, repeatedBook));
+
+        //VERIFICACAO
+        assertThat(results).extracting(BookImportResultDTO::getStatus).containsExactly(
+                BookImportResultDTO.Status.CREATED,
+                BookImportResultDTO.Status.DUPLICATED,
+                BookImportResultDTO.Status.DUPLICATED);
+        assertThat(results.get(0).getId()).isEqualTo(10L);
+        verify(repository, times(1)).findExistingIsbns(Mockito.anyCollection());
+        verify(repository, times(1)).insertAll(Collections.singletonList(newBook));
+    }
+
+    @Test
+    @DisplayName("Deve gravar livro a livro quando outro cadastro do mesmo isbn fizer o lote falhar")
+    public void saveAllBooksConcurrentIsbnTest(){
+        //CENARIO: O ISBN "2" FOI CADASTRADO POR OUTRA REQUISICAO DEPOIS DA CONSULTA
+        Book first = Book.builder().isbn("1").build();
+        Book raced = Book.builder().isbn("2").build();
+        when(repository.findExistingIsbns(Mockito.anyCollection())).thenReturn(Collections.emptySet());
+        when(repository.insertAll(Mockito.anyList())).then(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            books.forEach(book -> book.setId(book.getIsbn().equals("1") ? 10L : 11L));
+            if (books.contains(raced)) {
+                throw new DataIntegrityViolationException("Unique index or primary key violation: UK_BOOK_ISBN");
+            }
+            return books;
+        });
+
+        //EXECUCAO
+        List<BookImportResultDTO> results = service.saveAll(Arrays.asList(first, raced));
+
+        //VERIFICACAO
+        assertThat(results).extracting(BookImportResultDTO::getStatus).containsExactly(
+                BookImportResultDTO.Status.CREATED,
+                BookImportResultDTO.Status.DUPLICATED);
+        assertThat(results.get(0).getId()).isEqualTo(10L);
+        assertThat(results.get(1).getId()).isNull();
+        verify(repository, times(1)).insertAll(Arrays.asList(first, raced));
+        verify(repository, times(1)).insertAll(Collections.singletonList(first));
+        verify(repository, times(1)).insertAll(Collections.singletonList(raced));
+    }
+
     private static Book createValidBook() {
         return Book.builder()
                 .author("Fulano")
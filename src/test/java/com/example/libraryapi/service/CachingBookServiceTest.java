@@ -0,0 +1,187 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.impl.CachingBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class CachingBookServiceTest {
+
+    BookService delegate;
+    SimpleMeterRegistry meterRegistry;
+    BookService service;
+
+    @BeforeEach
+    public void setUp(){
+        this.delegate = Mockito.mock(BookService.class);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.service = new CachingBookService(delegate, Mockito.mock(CatalogVersion.class), meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @Test
+    @DisplayName("Deve ir ao banco apenas na primeira busca por id")
+    public void getByIdReadThroughTest(){
+        //CENARIO
+        when(delegate.getById(1L)).thenReturn(Optional.of(createBook()));
+
+        //EXECUCAO
+        service.getById(1L);
+        Optional<Book> book = service.getById(1L);
+
+        //VERIFICACAO
+        assertThat(book.isPresent()).isTrue();
+        assertThat(book.get().getIsbn()).isEqualTo("123");
+        verify(delegate, times(1)).getById(1L);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "books").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve resolver o isbn pelo cache depois da primeira busca")
+    public void getBookByIsbnReadThroughTest(){
+        when(delegate.getBookByIsbn("123")).thenReturn(Optional.of(createBook()));
+
+        service.getBookByIsbn("123");
+        Optional<Book> book = service.getBookByIsbn("123");
+
+        assertThat(book.get().getId()).isEqualTo(1L);
+        verify(delegate, times(1)).getBookByIsbn("123");
+        verify(delegate, never()).getById(anyLong());
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar ou deletar um livro")
+    public void invalidateOnWriteTest(){
+        Book book = createBook();
+        when(delegate.getById(1L)).thenReturn(Optional.of(book));
+        when(delegate.update(Mockito.any(Book.class))).thenReturn(book);
+
+        service.getById(1L);
+        service.update(book);
+        service.getById(1L);
+        service.delete(book);
+        service.getById(1L);
+
+        verify(delegate, times(3)).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Nao deve expor a instancia guardada no cache")
+    public void returnsCopyTest(){
+        when(delegate.getById(1L)).thenReturn(Optional.of(createBook()));
+
+        service.getById(1L).get().setTitle("Alterado");
+
+        assertThat(service.getById(1L).get().getTitle()).isEqualTo("As Aventuras");
+    }
+
+    @Test
+    @DisplayName("Deve buscar no banco apenas os ids fora do cache, todos de uma vez")
+    public void getByIdsTest(){
+        //CENARIO
+        when(delegate.getById(1L)).thenReturn(Optional.of(createBook()));
+        Book other = createBook().toBuilder().id(2L).isbn("456").build();
+        when(delegate.getByIds(Arrays.asList(2L, 3L))).thenReturn(Map.of(2L, other));
+        service.getById(1L);
+
+        //EXECUCAO
+        Map<Long, Book> books = service.getByIds(Arrays.asList(1L, 2L, 3L));
+        service.getByIds(Arrays.asList(1L, 2L));
+
+        //VERIFICACAO
+        assertThat(books).containsOnlyKeys(1L, 2L);
+        assertThat(books.get(2L)).isNotSameAs(other).isEqualTo(other);
+        verify(delegate, times(1)).getByIds(Mockito.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Deve resolver pelo cache os isbns ja conhecidos e buscar os demais em uma chamada")
+    public void getByIsbnsTest(){
+        //CENARIO
+        when(delegate.getBookByIsbn("123")).thenReturn(Optional.of(createBook()));
+        Book other = createBook().toBuilder().id(2L).isbn("456").build();
+        when(delegate.getByIsbns(Arrays.asList("456", "789"))).thenReturn(Map.of("456", other));
+        service.getBookByIsbn("123");
+
+        //EXECUCAO
+        Map<String, Book> books = service.getByIsbns(Arrays.asList("123", "456", "789"));
+        Map<String, Book> cached = service.getByIsbns(Arrays.asList("456"));
+
+        //VERIFICACAO
+        assertThat(books).containsOnlyKeys("123", "456");
+        assertThat(cached.get("456").getId()).isEqualTo(2L);
+        verify(delegate, times(1)).getByIsbns(Mockito.anyCollection());
+        verify(delegate, never()).getByIds(Mockito.anyCollection());
+    }
+
+    @Test
+    @DisplayName("Nao deve guardar o livro lido por isbn antes de uma atualizacao concorrente")
+    public void getBookByIsbnRaceWithUpdateTest() throws Exception{
+        //CENARIO: A LEITURA POR ISBN CARREGA A LINHA VELHA E SO TERMINA DEPOIS DA ATUALIZACAO INVALIDAR O CACHE
+        Book updated = createBook().toBuilder().title("Novo titulo").build();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        when(delegate.getBookByIsbn("123")).then(invocation -> {
+            loading.countDown();
+            written.await(5, TimeUnit.SECONDS);
+            return Optional.of(createBook());
+        });
+        when(delegate.update(Mockito.any(Book.class))).thenReturn(updated);
+        when(delegate.getById(1L)).thenReturn(Optional.of(updated));
+
+        //EXECUCAO
+        CompletableFuture<Optional<Book>> reader = CompletableFuture.supplyAsync(() -> service.getBookByIsbn("123"));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        service.update(updated);
+        written.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+
+        //VERIFICACAO
+        assertThat(service.getById(1L).get().getTitle()).isEqualTo("Novo titulo");
+        verify(delegate, times(1)).getById(1L);
+    }
+
+    @Test
+    @DisplayName("Nao deve guardar os livros lidos em lote por isbn antes de uma exclusao concorrente")
+    public void getByIsbnsRaceWithDeleteTest() throws Exception{
+        //CENARIO
+        Book book = createBook();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+        when(delegate.getByIsbns(Arrays.asList("123"))).then(invocation -> {
+            loading.countDown();
+            written.await(5, TimeUnit.SECONDS);
+            return Map.of("123", book);
+        });
+        when(delegate.getById(1L)).thenReturn(Optional.empty());
+
+        //EXECUCAO
+        CompletableFuture<Map<String, Book>> reader = CompletableFuture.supplyAsync(() -> service.getByIsbns(Arrays.asList("123")));
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        service.delete(book);
+        written.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+
+        //VERIFICACAO
+        assertThat(service.getById(1L)).isEmpty();
+        verify(delegate, times(1)).getById(1L);
+    }
+
+    private static Book createBook(){
+        return Book.builder().id(1L).title("As Aventuras").author("Fulano").isbn("123").build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.projection.CatalogStamp;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class CatalogVersionTest {
+
+    static final Instant UPDATED = Instant.parse("2022-09-20T10:15:30.123456Z");
+
+    BookRepository repository;
+
+    @BeforeEach
+    public void setUp(){
+        repository = Mockito.mock(BookRepository.class);
+        when(repository.findCatalogStamp()).thenReturn(new CatalogStamp(10L, UPDATED));
+    }
+
+    @Test
+    @DisplayName("Duas instancias devem gerar a mesma ETag para o mesmo catalogo")
+    public void sameEtagAcrossInstancesTest(){
+        CatalogVersion first = new CatalogVersion(repository, Duration.ofMinutes(1));
+        CatalogVersion second = new CatalogVersion(repository, Duration.ofMinutes(1));
+
+        assertThat(first.etag()).isEqualTo(second.etag());
+        assertThat(first.lastModified()).isEqualTo(UPDATED);
+    }
+
+    @Test
+    @DisplayName("Deve reler o catalogo depois do ttl e na hora apos uma escrita local")
+    public void ttlAndLocalWriteTest() throws InterruptedException {
+        //CENARIO
+        CatalogVersion cached = new CatalogVersion(repository, Duration.ofMinutes(1));
+        CatalogVersion expiring = new CatalogVersion(repository, Duration.ofMillis(1));
+        String etag = cached.etag();
+        expiring.etag();
+
+        //EXECUCAO: ESCRITA FEITA EM OUTRA INSTANCIA
+        when(repository.findCatalogStamp()).thenReturn(new CatalogStamp(11L, UPDATED.plusSeconds(1)));
+        Thread.sleep(5);
+
+        //VERIFICACAO
+        assertThat(cached.etag()).isEqualTo(etag);
+        assertThat(expiring.etag()).isNotEqualTo(etag);
+        cached.increment();
+        assertThat(cached.etag()).isEqualTo(expiring.etag());
+        verify(repository, times(4)).findCatalogStamp();
+    }
+
+    @Test
+    @DisplayName("Deve mudar a ETag e avancar o Last-Modified quando um livro for excluido")
+    public void deleteTest(){
+        CatalogVersion version = new CatalogVersion(repository, Duration.ofMinutes(1));
+        String etag = version.etag();
+
+        when(repository.findCatalogStamp()).thenReturn(new CatalogStamp(9L, UPDATED));
+        version.increment();
+
+        assertThat(version.etag()).isNotEqualTo(etag);
+        assertThat(version.lastModified()).isAfter(UPDATED);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.service.impl.CoalescingBookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+public class CoalescingBookServiceTest {
+
+    BookService delegate;
+    SimpleMeterRegistry meterRegistry;
+    BookService service;
+    ExecutorService executor;
+    CountDownLatch release;
+
+    @BeforeEach
+    public void setUp(){
+        this.delegate = Mockito.mock(BookService.class);
+        this.meterRegistry = new SimpleMeterRegistry();
+        this.service = new CoalescingBookService(delegate, meterRegistry, true);
+        this.executor = Executors.newFixedThreadPool(4);
+        this.release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Deve fazer uma unica busca por id para chamadas concorrentes")
+    public void getByIdCoalescingTest() throws Exception {
+        //CENARIO
+        Book book = Book.builder().id(1L).isbn("123").build();
+        when(delegate.getById(1L)).thenAnswer(invocation -> {
+            release.await();
+            return Optional.of(book);
+        });
+
+        //EXECUCAO
+        List<Future<Optional<Book>>> calls = submit(4, () -> service.getById(1L));
+        awaitInFlight("book.id", 4);
+        release.countDown();
+
+        //VERIFICACAO
+        for (Future<Optional<Book>> call : calls) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).containsSame(book);
+        }
+        verify(delegate, times(1)).getById(1L);
+        assertThat(count("book.id", "executed")).isEqualTo(1);
+        assertThat(count("book.id", "collapsed")).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Deve agrupar apenas listagens com o mesmo filtro e a mesma pagina")
+    public void findCoalescingTest() throws Exception {
+        //CENARIO
+        Book filter = Book.builder().author("Fulano").build();
+        Page<Book> page = new PageImpl<>(Arrays.asList(Book.builder().id(1L).build()));
+        when(delegate.find(any(Book.class), any(PageRequest.class))).thenAnswer(invocation -> {
+            release.await();
+            return page;
+        });
+
+        //EXECUCAO
+        List<Future<Page<Book>>> same = submit(3, () -> service.find(Book.builder().author("Fulano").build(), PageRequest.of(0, 10)));
+        Future<Page<Book>> otherPage = executor.submit(() -> service.find(filter, PageRequest.of(1, 10)));
+        awaitInFlight("book.find", 4);
+        release.countDown();
+
+        //VERIFICACAO
+        for (Future<Page<Book>> call : same) {
+            assertThat(call.get(5, TimeUnit.SECONDS)).isSameAs(page);
+        }
+        otherPage.get(5, TimeUnit.SECONDS);
+        verify(delegate, times(1)).find(any(Book.class), eq(PageRequest.of(0, 10)));
+        verify(delegate, times(1)).find(any(Book.class), eq(PageRequest.of(1, 10)));
+        assertThat(count("book.find", "collapsed")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Nao deve agrupar listagens filtradas por ids diferentes")
+    public void findDifferentIdsTest() throws Exception {
+        //CENARIO
+        Page<Book> first = new PageImpl<>(Arrays.asList(Book.builder().id(1L).build()));
+        Page<Book> second = new PageImpl<>(Arrays.asList(Book.builder().id(2L).build()));
+        when(delegate.find(any(Book.class), any(PageRequest.class))).thenAnswer(invocation -> {
+            release.await();
+            Book filter = invocation.getArgument(0);
+            return filter.getId() == 1L ? first : second;
+        });
+
+        //EXECUCAO
+        Future<Page<Book>> byFirstId = executor.submit(() -> service.find(Book.builder().id(1L).build(), PageRequest.of(0, 10)));
+        Future<Page<Book>> bySecondId = executor.submit(() -> service.find(Book.builder().id(2L).build(), PageRequest.of(0, 10)));
+        awaitInFlight("book.find", 2);
+        release.countDown();
+
+        //VERIFICACAO
+        assertThat(byFirstId.get(5, TimeUnit.SECONDS)).isSameAs(first);
+        assertThat(bySecondId.get(5, TimeUnit.SECONDS)).isSameAs(second);
+        verify(delegate, times(2)).find(any(Book.class), eq(PageRequest.of(0, 10)));
+        assertThat(count("book.find", "collapsed")).isZero();
+    }
+
+    @Test
+    @DisplayName("Nao deve aproveitar uma busca iniciada antes de uma escrita")
+    public void writeStartsNewGenerationTest() throws Exception {
+        //CENARIO
+        when(delegate.getBookByIsbn("123")).thenAnswer(invocation -> {
+            release.await();
+            return Optional.empty();
+        });
+        Future<Optional<Book>> before = executor.submit(() -> service.getBookByIsbn("123"));
+        awaitInFlight("book.isbn", 1);
+
+        //EXECUCAO
+        service.save(Book.builder().isbn("123").build());
+        Future<Optional<Book>> after = executor.submit(() -> service.getBookByIsbn("123"));
+        awaitInFlight("book.isbn", 2);
+        release.countDown();
+
+        //VERIFICACAO
+        before.get(5, TimeUnit.SECONDS);
+        after.get(5, TimeUnit.SECONDS);
+        verify(delegate, times(2)).getBookByIsbn("123");
+        assertThat(count("book.isbn", "collapsed")).isZero();
+    }
+
+    @Test
+    @DisplayName("Deve repassar a excecao da busca compartilhada para todos e liberar a chave")
+    public void failureTest() throws Exception {
+        //CENARIO
+        when(delegate.getById(1L)).thenAnswer(invocation -> {
+            release.await();
+            throw new IllegalStateException("banco fora");
+        });
+
+        //EXECUCAO
+        List<Future<Optional<Book>>> calls = submit(2, () -> service.getById(1L));
+        awaitInFlight("book.id", 2);
+        release.countDown();
+
+        //VERIFICACAO
+        for (Future<Optional<Book>> call : calls) {
+            assertThatThrownBy(() -> call.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThatThrownBy(() -> service.getById(1L)).isInstanceOf(IllegalStateException.class);
+        verify(delegate, times(2)).getById(1L);
+    }
+
+    private <T> List<Future<T>> submit(int calls, Callable<T> call) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(executor.submit(call));
+        }
+        return futures;
+    }
+
+    /*ESPERA TODAS AS CHAMADAS CHEGAREM AO SingleFlight (EXECUTANDO OU AGUARDANDO) ANTES DE LIBERAR O BANCO*/
+    private void awaitInFlight(String name, int calls) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (count(name, "executed") + count(name, "collapsed") < calls && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double count(String name, String outcome) {
+        return meterRegistry.get("library.singleflight.calls").tag("name", name).tag("outcome", outcome)
+                .counter().count();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.exception.BusinessException;
+import com.example.libraryapi.model.entity.Book;
+import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.repositoy.BookRepository;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class LoanConcurrencyTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanConcurrencyTest.class);
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 20;
+
+    @Autowired
+    LoanService loanService;
+    @Autowired
+    LoanRepository loanRepository;
+    @Autowired
+    BookRepository bookRepository;
+
+    @AfterEach
+    public void tearDown(){
+        loanRepository.deleteAll();
+        bookRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Deve permitir apenas um emprestimo ativo com muitas threads pedindo o mesmo livro")
+    public void onlyOneActiveLoanUnderContentionTest() throws Exception{
+        //CENARIO
+        Book book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("hot-123").build());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    Loan loan = Loan.builder().book(book).customer("cliente-" + thread).loanDate(LocalDate.now()).build();
+                    try {
+                        loanService.save(loan);
+                        created.incrementAndGet();
+                    } catch (BusinessException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        //EXECUCAO
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        //VERIFICACAO
+        int attempts = THREADS * ATTEMPTS_PER_THREAD;
+        log.info("{} tentativas concorrentes de emprestimo em {} ms ({} tentativas/s)",
+                attempts, TimeUnit.NANOSECONDS.toMillis(elapsed), attempts * 1_000_000_000L / elapsed);
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(attempts - 1);
+        assertThat(loanRepository.count()).isEqualTo(1);
+        assertThat(loanRepository.existsByBookAndNotReturned(book)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Deve permitir um novo emprestimo depois da devolucao")
+    public void loanAgainAfterReturnTest(){
+        Book book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("hot-456").build());
+        Loan loan = loanService.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+
+        loan.setReturned(true);
+        loanService.update(loan);
+        Loan again = loanService.save(Loan.builder().book(book).customer("Ciclano").loanDate(LocalDate.now()).build());
+
+        assertThat(again.getId()).isNotNull();
+        assertThat(loanRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar a devolucao feita a partir de uma copia desatualizada do emprestimo")
+    public void staleLoanUpdateTest(){
+        //CENARIO
+        Book book = bookRepository.save(Book.builder().title("As Aventuras").author("Fulano").isbn("hot-789").build());
+        Loan saved = loanService.save(Loan.builder().book(book).customer("Fulano").loanDate(LocalDate.now()).build());
+        Loan first = loanService.getById(saved.getId()).get();
+        Loan second = loanService.getById(saved.getId()).get();
+
+        //EXECUCAO
+        first.setCustomer("Ciclano");
+        loanService.update(first);
+        second.setReturned(true);
+        Throwable exception = catchThrowable(() -> loanService.update(second));
+
+        //VERIFICACAO
+        assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+        Loan current = loanRepository.findById(saved.getId()).get();
+        assertThat(current.getCustomer()).isEqualTo("Ciclano");
+        assertThat(current.getReturned()).isNotEqualTo(Boolean.TRUE);
+        assertThat(current.getVersion()).isEqualTo(1L);
+    }
+}
@@ -1,16 +1,21 @@
 package com.example.libraryapi.service;
 
 import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.api.dto.LoanReturnResultDTO;
 import com.example.libraryapi.exception.BusinessException;
 import com.example.libraryapi.model.entity.Book;
 import com.example.libraryapi.model.entity.Loan;
+import com.example.libraryapi.model.projection.LoanSummary;
 import com.example.libraryapi.model.repositoy.LoanRepository;
+import com.example.libraryapi.service.impl.BookAvailabilityIndex;
 import com.example.libraryapi.service.impl.LoanServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -29,7 +34,7 @@ import static org.mockito.Mockito.*;
 
 @ExtendWith(SpringExtension.class)
 @ActiveProfiles("test")
-public class LoanServiceTesst {
+public class LoanServiceTest {
 
     @MockBean
     LoanRepository repository;
@@ -37,7 +42,7 @@ public class LoanServiceTesst {
 
     @BeforeEach
     public void setUp(){
-        this.service = new LoanServiceImpl(repository);
+        this.service = new LoanServiceImpl(repository, new BookAvailabilityIndex(), Mockito.mock(LoanVersion.class));
     }
 
     @Test
@@ -59,9 +64,8 @@ public class LoanServiceTesst {
         //SALVO ESSE MESMO EMPRESTIMO(loan) DENTRO DE UMA VARIAVEL (savedLoan) COM UMA ID:1 DE EMPRESTIMO
         Loan savedLoan = Loan.builder().id(1L).customer(customer).book(book).build();
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(false);
-        //COM ESSE EMPRESTIMO (savedLoan) FEITO ENVIO PARA O REPOSITORY SALVAR (save) UM DADO DO TIPO EMPRESTIMO (loan)
-        when(repository.save(savingLoan)).thenReturn(savedLoan);
+        //COM ESSE EMPRESTIMO (savedLoan) FEITO ENVIO PARA O REPOSITORY SALVAR (saveAndFlush) UM DADO DO TIPO EMPRESTIMO (loan)
+        when(repository.saveAndFlush(savingLoan)).thenReturn(savedLoan);
 
         //CHAMA O METODO DE SALVAR(save) DO SERVICE PASSANDO O EMPRESTIMO CRIADO E SALVA NA VERIAVEL loan
         Loan loan = service.save(savingLoan);
@@ -91,14 +95,16 @@ public class LoanServiceTesst {
                 .loanDate(LocalDate.now())
                 .build();
 
-        when(repository.existsByBookAndNotReturned(book)).thenReturn(true);
+        //O INDICE UNICO DE EMPRESTIMO ATIVO REJEITA O INSERT
+        when(repository.saveAndFlush(savingLoan)).thenThrow(new DataIntegrityViolationException(
+                "could not execute statement", new RuntimeException("Unique index violation: PUBLIC.UK_LOAN_ACTIVE_BOOK")));
 
         Throwable exception = catchThrowable(() -> service.save(savingLoan));
 
         assertThat(exception).isInstanceOf(BusinessException.class)
                 .hasMessage("Book already loaned");
 
-        verify(repository, never()).save(savingLoan);
+        verify(repository, never()).existsByBookAndNotReturned(book);
 
     }
 
@@ -153,19 +159,19 @@ public class LoanServiceTesst {
                 .build();
 
         Long id = 1L;
-        Loan loan = createLoan();
+        LoanSummary loan = createLoanSummary();
         loan.setId(id);
 
         PageRequest pageRequest = PageRequest.of(0,10);
-        List<Loan> lista = Arrays.asList(loan);
-        Page<Loan> page = new PageImpl<Loan>(lista,pageRequest , lista.size());
+        List<LoanSummary> lista = Arrays.asList(loan);
+        Page<LoanSummary> page = new PageImpl<LoanSummary>(lista,pageRequest , lista.size());
         when(repository.
-                findByBookIsbnOrCustomer(
+                searchSummaries(
                         Mockito.anyString(),
                         Mockito.anyString(), Mockito.any(PageRequest.class)))
                 .thenReturn(page);
         //EXECUCAO
-        Page<Loan> result = service.find(loanFilterDTO, pageRequest);
+        Page<LoanSummary> result = service.find(loanFilterDTO, pageRequest);
         //VERIFICACAO
         assertThat(result.getTotalElements()).isEqualTo(1);
         assertThat(result.getContent()).isEqualTo(lista);
@@ -173,6 +179,83 @@ public class LoanServiceTesst {
         assertThat(result.getPageable().getPageSize()).isEqualTo(10);
     }
 
+    @Test
+    @DisplayName("Deve buscar a proxima pagina de emprestimos a partir do ultimo id")
+    public void findLoanAfterTest(){
+        LoanFilterDTO loanFilterDTO = LoanFilterDTO.builder().customer("Fulano").build();
+        List<LoanSummary> lista = Arrays.asList(createLoanSummary());
+        when(repository.searchSummariesAfter(null, "Fulano", 10L, PageRequest.of(0, 5)))
+                .thenReturn(lista);
+
+        List<LoanSummary> result = service.findAfter(loanFilterDTO, 10L, 5);
+
+        assertThat(result).isEqualTo(lista);
+    }
+
+    @Test
+    @DisplayName("Deve buscar o historico de emprestimos do livro")
+    public void getLoansByBookTest(){
+        List<LoanSummary> lista = Arrays.asList(createLoanSummary());
+        PageRequest pageRequest = PageRequest.of(0, 10);
+        when(repository.findSummariesByBookId(1L, pageRequest)).thenReturn(new PageImpl<>(lista, pageRequest, 1));
+        when(repository.findSummariesByBookIdAfter(1L, 0L, PageRequest.of(0, 5))).thenReturn(lista);
+
+        assertThat(service.getLoansByBook(1L, pageRequest).getContent()).isEqualTo(lista);
+        assertThat(service.getLoansByBookAfter(1L, null, 5)).isEqualTo(lista);
+    }
+
+    @Test
+    @DisplayName("Deve devolver em massa com um update por lote e informar o resultado de cada item")
+    public void returnAllTest(){
+        //CENARIO
+        LoanSummary active = LoanSummary.builder().id(1L).bookId(11L).isbn("321").build();
+        LoanSummary alreadyReturned = LoanSummary.builder().id(2L).bookId(12L).isbn("456").returned(true).build();
+        LoanSummary activeByIsbn = LoanSummary.builder().id(3L).bookId(13L).isbn("789").build();
+        when(repository.findSummariesByIdIn(Mockito.anyCollection())).thenReturn(Arrays.asList(active, alreadyReturned));
+        when(repository.findActiveSummariesByIsbnIn(Mockito.anyCollection())).thenReturn(Arrays.asList(activeByIsbn));
+        when(repository.markReturned(Mockito.anyCollection())).thenReturn(1);
+
+        //EXECUCAO
+        List<LoanReturnResultDTO> results = service.returnAll(Arrays.asList(1L, 2L, 9L, 1L), Arrays.asList("789", "000"));
+
+        //VERIFICACAO
+        assertThat(results).extracting(LoanReturnResultDTO::getStatus).containsExactly(
+                LoanReturnResultDTO.Status.RETURNED,
+                LoanReturnResultDTO.Status.ALREADY_RETURNED,
+                LoanReturnResultDTO.Status.NOT_FOUND,
+                LoanReturnResultDTO.Status.ALREADY_RETURNED,
+                LoanReturnResultDTO.Status.RETURNED,
+                LoanReturnResultDTO.Status.NOT_FOUND);
+        assertThat(results.get(2).getId()).isEqualTo(9L);
+        assertThat(results.get(5).getIsbn()).isEqualTo("000");
+        verify(repository).markReturned(Arrays.asList(1L));
+        verify(repository).markReturned(Arrays.asList(3L));
+    }
+
+    @Test
+    @DisplayName("Deve falhar a devolucao em massa quando outra requisicao devolveu parte do lote")
+    public void returnAllConcurrentReturnTest(){
+        //CENARIO
+        LoanSummary first = LoanSummary.builder().id(1L).bookId(11L).isbn("321").build();
+        LoanSummary second = LoanSummary.builder().id(2L).bookId(12L).isbn("456").build();
+        when(repository.findSummariesByIdIn(Mockito.anyCollection())).thenReturn(Arrays.asList(first, second));
+        when(repository.markReturned(Mockito.anyCollection())).thenReturn(1);
+
+        //EXECUCAO
+        Throwable exception = catchThrowable(() -> service.returnAll(Arrays.asList(1L, 2L), null));
+
+        //VERIFICACAO
+        assertThat(exception).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    public static LoanSummary createLoanSummary(){
+        return LoanSummary.builder()
+                .bookId(1L)
+                .isbn("321")
+                .customer("Fulano")
+                .loanDate(LocalDate.now())
+                .build();
+    }
 
     public static Loan createLoan(){
         //CRIO UM LIVRO (book) COM ID 1
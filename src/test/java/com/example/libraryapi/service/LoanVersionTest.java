@@ -0,0 +1,60 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.projection.LoanStamp;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class LoanVersionTest {
+
+    LoanRepository repository;
+
+    @BeforeEach
+    public void setUp(){
+        repository = Mockito.mock(LoanRepository.class);
+        when(repository.findLoanStamp()).thenReturn(new LoanStamp(3L, 7L, 5L));
+    }
+
+    @Test
+    @DisplayName("Duas instancias (ou a mesma depois de reiniciar) devem gerar a mesma ETag para os mesmos emprestimos")
+    public void sameEtagAcrossInstancesTest(){
+        LoanVersion first = new LoanVersion(repository, Duration.ofMinutes(1));
+        LoanVersion restarted = new LoanVersion(repository, Duration.ofMinutes(1));
+
+        assertThat(first.etag()).isEqualTo(restarted.etag()).isEqualTo("3-7-5");
+    }
+
+    @Test
+    @DisplayName("Deve mudar a ETag com um novo emprestimo e com uma devolucao")
+    public void loanAndReturnTest(){
+        LoanVersion version = new LoanVersion(repository, Duration.ofMinutes(1));
+        String initial = version.etag();
+
+        when(repository.findLoanStamp()).thenReturn(new LoanStamp(4L, 8L, 5L));
+        version.increment();
+        String loaned = version.etag();
+
+        when(repository.findLoanStamp()).thenReturn(new LoanStamp(4L, 8L, 6L));
+        version.increment();
+        String returned = version.etag();
+
+        assertThat(loaned).isNotEqualTo(initial);
+        assertThat(returned).isNotEqualTo(loaned).isNotEqualTo(initial);
+        verify(repository, times(3)).findLoanStamp();
+    }
+
+    @Test
+    @DisplayName("Deve gerar uma ETag para a tabela de emprestimos vazia")
+    public void emptyTest(){
+        when(repository.findLoanStamp()).thenReturn(new LoanStamp(0L, null, null));
+
+        assertThat(new LoanVersion(repository, Duration.ofMinutes(1)).etag()).isEqualTo("0-0-0");
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.model.repositoy.LoanRepository;
+import com.example.libraryapi.service.impl.OverdueLoanServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(SpringExtension.class)
+@ActiveProfiles("test")
+public class OverdueLoanServiceTest {
+
+    @MockBean
+    LoanRepository repository;
+
+    SimpleMeterRegistry meterRegistry;
+    List<List<LoanSummary>> batches;
+    OverdueLoanServiceImpl service;
+
+    @BeforeEach
+    public void setUp(){
+        meterRegistry = new SimpleMeterRegistry();
+        batches = new CopyOnWriteArrayList<>();
+        service = new OverdueLoanServiceImpl(repository, batches::add, meterRegistry, 4, 100, 4, 2);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        service.destroy();
+    }
+
+    @Test
+    @DisplayName("Deve notificar os emprestimos atrasados em lotes limitados")
+    public void detectOverdueLoansTest(){
+        //CENARIO
+        LocalDate today = LocalDate.of(2022, 9, 20);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(repository.streamOverdue(LocalDate.of(2022, 9, 16)))
+                .thenReturn(summaries(250).stream().onClose(() -> closed.set(true)));
+
+        //EXECUCAO
+        OverdueLoanRun run = service.detectOverdueLoans(today);
+
+        //VERIFICACAO
+        assertThat(run.getLoans()).isEqualTo(250);
+        assertThat(run.getBatches()).isEqualTo(3);
+        assertThat(run.getNotified()).isEqualTo(250);
+        assertThat(run.getFailed()).isEqualTo(0);
+        assertThat(batches).hasSize(3);
+        assertThat(batches.stream().mapToInt(List::size).max().getAsInt()).isEqualTo(100);
+        assertThat(closed.get()).isTrue();
+        assertThat(meterRegistry.counter("library.overdue.loans").count()).isEqualTo(250.0);
+        assertThat(meterRegistry.timer("library.overdue.run").count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Deve contabilizar falhas do notificador sem interromper a execucao")
+    public void notifierFailureTest(){
+        //CENARIO
+        OverdueLoanServiceImpl failing = new OverdueLoanServiceImpl(repository, loans -> {
+            throw new IllegalStateException("smtp fora do ar");
+        }, meterRegistry, 4, 100, 2, 2);
+        when(repository.streamOverdue(LocalDate.of(2022, 9, 16))).thenReturn(summaries(150).stream());
+
+        //EXECUCAO
+        OverdueLoanRun run = failing.detectOverdueLoans(LocalDate.of(2022, 9, 20));
+        failing.destroy();
+
+        //VERIFICACAO
+        assertThat(run.getLoans()).isEqualTo(150);
+        assertThat(run.getNotified()).isEqualTo(0);
+        assertThat(run.getFailed()).isEqualTo(150);
+        assertThat(meterRegistry.counter("library.overdue.failures").count()).isEqualTo(150.0);
+    }
+
+    private static List<LoanSummary> summaries(int count){
+        return LongStream.rangeClosed(1, count)
+                .mapToObj(id -> LoanSummary.builder().id(id).isbn("123").customer("Fulano")
+                        .loanDate(LocalDate.of(2022, 9, 1)).build())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.libraryapi.service;
+
+import com.example.libraryapi.api.dto.LoanFilterDTO;
+import com.example.libraryapi.model.projection.LoanSummary;
+import com.example.libraryapi.service.impl.ReactiveLoanServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+public class ReactiveLoanServiceTest {
+
+    private static final int BATCH_SIZE = 2;
+
+    LoanService loanService;
+    Scheduler scheduler;
+    ReactiveLoanService service;
+
+    @BeforeEach
+    public void setUp(){
+        loanService = Mockito.mock(LoanService.class);
+        scheduler = Schedulers.newBoundedElastic(2, 100, "test-jdbc");
+        service = new ReactiveLoanServiceImpl(loanService, scheduler, BATCH_SIZE);
+    }
+
+    @AfterEach
+    public void tearDown(){
+        scheduler.dispose();
+    }
+
+    @Test
+    @DisplayName("Deve ler os emprestimos em lotes por chave ate o lote incompleto")
+    public void findInBatchesTest(){
+        //CENARIO
+        LoanFilterDTO filter = LoanFilterDTO.builder().customer("Fulano").build();
+        when(loanService.findAfter(filter, 0L, BATCH_SIZE)).thenReturn(summaries(1L, 2L));
+        when(loanService.findAfter(filter, 2L, BATCH_SIZE)).thenReturn(summaries(3L, 4L));
+        when(loanService.findAfter(filter, 4L, BATCH_SIZE)).thenReturn(summaries(5L));
+
+        //EXECUCAO E VERIFICACAO
+        StepVerifier.create(service.find(filter).map(LoanSummary::getId))
+                .expectNext(1L, 2L, 3L, 4L, 5L)
+                .verifyComplete();
+        verify(loanService, times(3)).findAfter(Mockito.eq(filter), Mockito.anyLong(), Mockito.eq(BATCH_SIZE));
+    }
+
+    @Test
+    @DisplayName("Deve consultar no maximo um lote a frente do que o assinante pediu")
+    public void backpressureTest(){
+        //CENARIO
+        when(loanService.getLoansByBookAfter(1L, 0L, BATCH_SIZE)).thenReturn(summaries(1L, 2L));
+        when(loanService.getLoansByBookAfter(1L, 2L, BATCH_SIZE)).thenReturn(summaries(3L, 4L));
+        when(loanService.getLoansByBookAfter(1L, 4L, BATCH_SIZE)).thenReturn(summaries(5L, 6L));
+
+        //EXECUCAO E VERIFICACAO
+        StepVerifier.create(service.getLoansByBook(1L).map(LoanSummary::getId), 1)
+                .expectNext(1L)
+                .expectNoEvent(Duration.ofMillis(100))
+                .then(() -> verify(loanService, never()).getLoansByBookAfter(1L, 4L, BATCH_SIZE))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("Deve completar sem itens quando o filtro nao encontra emprestimos")
+    public void findEmptyTest(){
+        LoanFilterDTO filter = LoanFilterDTO.builder().isbn("000").build();
+        when(loanService.findAfter(filter, 0L, BATCH_SIZE)).thenReturn(List.of());
+
+        StepVerifier.create(service.find(filter)).verifyComplete();
+    }
+
+    private static List<LoanSummary> summaries(Long... ids){
+        List<LoanSummary> rows = new ArrayList<>();
+        Arrays.stream(ids).forEach(id -> rows.add(LoanSummary.builder().id(id).customer("Fulano").build()));
+        return rows;
+    }
+}